@@ -0,0 +1,110 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Воспроизводимые входные данные для бенчмарков: текст вперемешку
+ * со ссылками и голыми доменами, а также docx из такого текста.
+ */
+final class Corpus {
+
+    private static final String[] WORDS = {
+            "проверка", "сайта", "ссылка", "документ", "договор", "оплата", "доставка", "магазин",
+            "the", "order", "invoice", "payment", "please", "visit", "contact", "support",
+            "2024", "№15", "(см.", "ниже)", "—", "и", "в", "на", "e-mail:", "info@example.org"
+    };
+    private static final String[] HOSTS = {
+            "example.com", "shop.example.co.uk", "новости.рф", "docs.github.io", "api.service.io",
+            "cdn.static-files.net", "blog.example.org", "localhost:8080", "192.168.1.10"
+    };
+    private static final String[] PATHS = {
+            "", "/", "/index.html", "/catalog/item?id=42&ref=mail", "/a/b/c/", "/search?q=%D1%82%D0%B5%D1%81%D1%82",
+            "/#section", "/path/with-dash_and.dot"
+    };
+
+    private Corpus() {
+    }
+
+    /**
+     * Текст примерно заданного размера; на urlEvery слов приходится одна ссылка
+     * или доменное имя без схемы.
+     */
+    static String text(int chars, int urlEvery, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(chars + 256);
+        int words = 0;
+        while (text.length() < chars) {
+            if (++words % urlEvery == 0) {
+                String host = HOSTS[random.nextInt(HOSTS.length)];
+                switch (random.nextInt(3)) {
+                    case 0 -> text.append("https://").append(host).append(PATHS[random.nextInt(PATHS.length)]);
+                    case 1 -> text.append("http://").append(host).append(PATHS[random.nextInt(PATHS.length)]).append(',');
+                    default -> text.append(host).append('.');
+                }
+            } else {
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            text.append(words % 17 == 0 ? '\n' : ' ');
+        }
+        return text.toString();
+    }
+
+    /**
+     * word/document.xml: абзацы с разбиением текста на runs, как это делает Word,
+     * и гиперссылки через r:id.
+     */
+    static String documentXml(int paragraphs, int urlEvery, long seed) {
+        Random random = new Random(seed);
+        StringBuilder xml = new StringBuilder(paragraphs * 200);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+                .append("<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"")
+                .append(" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><w:body>");
+        for (int p = 0; p < paragraphs; p++) {
+            xml.append("<w:p>");
+            String line = text(120, urlEvery, seed + p);
+            int cut = random.nextInt(line.length());
+            xml.append("<w:r><w:t xml:space=\"preserve\">").append(escape(line.substring(0, cut))).append("</w:t></w:r>");
+            xml.append("<w:r><w:rPr><w:b/></w:rPr><w:t>").append(escape(line.substring(cut))).append("</w:t></w:r>");
+            if (p % urlEvery == 0) {
+                xml.append("<w:hyperlink r:id=\"rId").append(p).append("\"><w:r><w:t>здесь</w:t></w:r></w:hyperlink>");
+            }
+            xml.append("</w:p>");
+        }
+        return xml.append("</w:body></w:document>").toString();
+    }
+
+    static byte[] docx(int paragraphs, int urlEvery, long seed) throws IOException {
+        StringBuilder rels = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int p = 0; p < paragraphs; p += urlEvery) {
+            rels.append("<Relationship Id=\"rId").append(p)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/hyperlink\"")
+                    .append(" Target=\"https://").append(HOSTS[p % HOSTS.length]).append("/doc/").append(p)
+                    .append("\" TargetMode=\"External\"/>");
+        }
+        rels.append("</Relationships>");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            put(zip, "[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Types/>");
+            put(zip, "word/document.xml", documentXml(paragraphs, urlEvery, seed));
+            put(zip, "word/_rels/document.xml.rels", rels.toString());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void put(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
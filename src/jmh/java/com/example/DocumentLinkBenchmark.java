@@ -0,0 +1,56 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор загруженных docx: весь архив и отдельно word/document.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class DocumentLinkBenchmark {
+
+    // 1000 абзацев — около 200 КБ XML, 50000 — около 10 МБ.
+    @Param({"1000", "50000"})
+    int paragraphs;
+
+    private byte[] docx;
+    private byte[] documentXml;
+
+    @Setup
+    public void setUp() throws IOException {
+        docx = Corpus.docx(paragraphs, 20, 7);
+        documentXml = Corpus.documentXml(paragraphs, 20, 7).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Set<String> readDocx() throws IOException {
+        return DocumentLinkReader.readDocx(new ByteArrayInputStream(docx));
+    }
+
+    @Benchmark
+    public Set<String> readDocumentXml() throws Exception {
+        UrlExtractor extractor = new UrlExtractor();
+        DocumentLinkReader.readDocumentXml(new ByteArrayInputStream(documentXml), extractor);
+        return extractor.result();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нормализация, валидация и расчёт оценки — выполняются на каждую ссылку,
+ * в том числе при ответе из кеша. Время указано на весь набор из 1024 элементов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final String[] RAW = {
+            "example.com", "https://example.com/", "  http://shop.example.co.uk/catalog?id=1  ",
+            "https://новости.рф/", "ftp://files.example.org", "not a url", "https://a.b/c/d/e/f/g/",
+            "http://192.168.1.10:8080/admin"
+    };
+
+    private final String[] raw = new String[SIZE];
+    private final String[] normalized = new String[SIZE];
+    private final List<Map<String, Object>> checks = new ArrayList<>(SIZE);
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SIZE; i++) {
+            raw[i] = RAW[i % RAW.length];
+            normalized[i] = CheckerController.normalizeUrl(raw[i]);
+
+            Map<String, Object> check = new HashMap<>();
+            check.put("https", i % 2 == 0);
+            check.put("validSSL", i % 3 != 0);
+            check.put("safeBrowsing", i % 50 != 0);
+            check.put("validDomain", true);
+            check.put("hasContact", i % 4 == 0);
+            check.put("hasPrivacyPolicy", i % 5 == 0);
+            check.put("ageMonths", i % 100 - 1);
+            if (i % 64 == 0) {
+                check.put("resolvable", false);
+            }
+            checks.add(check);
+        }
+    }
+
+    @Benchmark
+    public void normalizeUrl(Blackhole blackhole) {
+        for (String url : raw) {
+            blackhole.consume(CheckerController.normalizeUrl(url));
+        }
+    }
+
+    @Benchmark
+    public void isValidUrl(Blackhole blackhole) {
+        for (String url : normalized) {
+            blackhole.consume(CheckerController.isValidUrl(url));
+        }
+    }
+
+    @Benchmark
+    public void calculateTrustScore(Blackhole blackhole) {
+        for (Map<String, Object> check : checks) {
+            blackhole.consume(CheckerController.calculateTrustScore(check));
+        }
+    }
+}
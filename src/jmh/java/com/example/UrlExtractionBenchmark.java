@@ -0,0 +1,53 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Извлечение ссылок из текста (/api/advanced/check-text и текстовые файлы).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class UrlExtractionBenchmark {
+
+    @Param({"4096", "1048576", "10485760"})
+    int chars;
+
+    // dense — ссылка примерно на каждое десятое слово, sparse — на каждое двухтысячное.
+    @Param({"dense", "sparse"})
+    String density;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = Corpus.text(chars, "dense".equals(density) ? 10 : 2000, 42);
+    }
+
+    @Benchmark
+    public Set<String> extractFromString() {
+        return UrlExtractor.extract(text);
+    }
+
+    @Benchmark
+    public Set<String> extractFromReader() throws Exception {
+        return UrlExtractor.extract(new StringReader(text));
+    }
+}
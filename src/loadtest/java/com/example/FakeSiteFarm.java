@@ -0,0 +1,197 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Набор поддельных сайтов на localhost. Каждый вид сайта слушает свой порт,
+ * а разные «хосты» — это адреса 127.0.0.x, так что у каждого сайта свой origin
+ * и кеши приложения ведут себя как на настоящих доменах.
+ */
+final class FakeSiteFarm implements AutoCloseable {
+
+    enum Kind {
+        FAST, SLOW, HANGING, REDIRECT, MISSING, TLS_EXPIRED
+    }
+
+    static final int MAX_HOSTS = 250;
+
+    private static final long HANG_MILLIS = 60_000;
+    private static final String STORE_PASSWORD = "loadtest";
+    private static final byte[] HOME_PAGE = ("<!doctype html><html><head><meta charset=\"utf-8\"><title>Магазин</title></head>"
+            + "<body><h1>Магазин</h1><nav><a href=\"/catalog\">Каталог</a> <a href=\"/contact\">Контакты</a> "
+            + "<a href=\"/privacy-policy\">Политика конфиденциальности</a></nav><p>"
+            + "Lorem ipsum dolor sit amet. ".repeat(200) + "</p></body></html>").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAGE = "<!doctype html><html><body><p>ok</p></body></html>".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<Kind, HttpServer> servers = new EnumMap<>(Kind.class);
+    private final Map<Kind, LongAdder> requests = new EnumMap<>(Kind.class);
+    private final Map<Kind, Set<InetSocketAddress>> connections = new EnumMap<>(Kind.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool(CheckExecutorConfig.namedThreads("farm-"));
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private FakeSiteFarm() {
+    }
+
+    static FakeSiteFarm start(Path workDir) throws Exception {
+        FakeSiteFarm farm = new FakeSiteFarm();
+        SSLContext expired = expiredCertificateContext(workDir);
+        for (Kind kind : Kind.values()) {
+            HttpServer server;
+            if (kind == Kind.TLS_EXPIRED) {
+                HttpsServer https = HttpsServer.create(new InetSocketAddress(0), 1024);
+                Set<InetSocketAddress> handshakes = farm.connections.computeIfAbsent(kind, k -> ConcurrentHashMap.newKeySet());
+                // Клиенты, проверяющие сертификат, обрывают соединение на рукопожатии и до
+                // обработчика не доходят, поэтому соединения считаются здесь.
+                https.setHttpsConfigurator(new HttpsConfigurator(expired) {
+                    @Override
+                    public void configure(HttpsParameters params) {
+                        handshakes.add(params.getClientAddress());
+                        super.configure(params);
+                    }
+                });
+                server = https;
+            } else {
+                server = HttpServer.create(new InetSocketAddress(0), 1024);
+            }
+            farm.requests.put(kind, new LongAdder());
+            farm.connections.putIfAbsent(kind, ConcurrentHashMap.newKeySet());
+            server.createContext("/", exchange -> farm.handle(kind, exchange));
+            server.setExecutor(farm.executor);
+            server.start();
+            farm.servers.put(kind, server);
+        }
+        return farm;
+    }
+
+    String url(Kind kind, int host, String path) {
+        String scheme = kind == Kind.TLS_EXPIRED ? "https" : "http";
+        return scheme + "://" + address(host) + ":" + servers.get(kind).getAddress().getPort() + path;
+    }
+
+    long requests(Kind kind) {
+        return requests.get(kind).sum();
+    }
+
+    // Число разных TCP-соединений: у каждого свой адрес и порт клиента.
+    long connections(Kind kind) {
+        return connections.get(kind).size();
+    }
+
+    @Override
+    public void close() {
+        stopped.countDown();
+        servers.values().forEach(server -> server.stop(0));
+        executor.shutdownNow();
+    }
+
+    private void handle(Kind kind, HttpExchange exchange) throws IOException {
+        requests.get(kind).increment();
+        connections.get(kind).add(exchange.getRemoteAddress());
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            switch (kind) {
+                case SLOW -> pause(ThreadLocalRandom.current().nextLong(200, 1500));
+                case HANGING -> pause(HANG_MILLIS);
+                case REDIRECT -> {
+                    String host = exchange.getLocalAddress().getAddress().getHostAddress();
+                    exchange.getResponseHeaders().set("Location", "http://" + host + ":"
+                            + servers.get(Kind.FAST).getAddress().getPort() + path);
+                    respond(exchange, 301, null);
+                    return;
+                }
+                case MISSING -> {
+                    if (!"/".equals(path)) {
+                        respond(exchange, 404, null);
+                        return;
+                    }
+                }
+                default -> {
+                }
+            }
+            respond(exchange, 200, "/".equals(path) ? HOME_PAGE : PAGE);
+        } catch (IOException e) {
+            // Клиент ушёл по таймауту — для нагрузочного теста это обычная ситуация.
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null || "HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void pause(long millis) {
+        try {
+            stopped.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String address(int host) {
+        return "127.0.0." + (2 + Math.floorMod(host, MAX_HOSTS));
+    }
+
+    /**
+     * Самоподписанный сертификат, срок действия которого закончился год назад.
+     * Выпускается штатным keytool из той же JDK.
+     */
+    private static SSLContext expiredCertificateContext(Path workDir) throws Exception {
+        Path keystore = workDir.resolve("expired.p12");
+        Files.deleteIfExists(keystore);
+        Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+        Process process = new ProcessBuilder(keytool.toString(), "-genkeypair",
+                "-alias", "site", "-keyalg", "RSA", "-keysize", "2048",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-startdate", "-400d", "-validity", "30",
+                "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                "-storepass", STORE_PASSWORD, "-keypass", STORE_PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool завершился с ошибкой: " + output);
+        }
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            store.load(in, STORE_PASSWORD.toCharArray());
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(store, STORE_PASSWORD.toCharArray());
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), null, null);
+        return context;
+    }
+}
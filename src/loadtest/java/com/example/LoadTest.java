@@ -0,0 +1,259 @@
+package com.example;
+
+import org.json.JSONObject;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Нагрузочный прогон: поднимает поддельные сайты и заглушку Safe Browsing,
+ * запускает приложение на случайном порту и гоняет по нему параллельные
+ * запросы. Для каждого сценария печатает p50/p99, пропускную способность
+ * и число исходящих запросов и соединений к сайтам. Прогон завершается
+ * с ненулевым кодом, если в сценарии были ошибки или повторные ссылки
+ * снова ушли в сеть вместо кеша, — так его можно использовать как проверку.
+ *
+ * mvn -Ploadtest verify -Dloadtest.args="requests=2000 concurrency=32 hosts=50"
+ */
+public final class LoadTest {
+
+    // Доли видов сайтов в трафике, в процентах.
+    private static final Map<FakeSiteFarm.Kind, Integer> MIX = new EnumMap<>(Map.of(
+            FakeSiteFarm.Kind.FAST, 50,
+            FakeSiteFarm.Kind.SLOW, 20,
+            FakeSiteFarm.Kind.REDIRECT, 10,
+            FakeSiteFarm.Kind.MISSING, 10,
+            FakeSiteFarm.Kind.TLS_EXPIRED, 5,
+            FakeSiteFarm.Kind.HANGING, 5
+    ));
+
+    private final FakeSiteFarm farm;
+    private final SafeBrowsingStub safeBrowsing;
+    private final String baseUrl;
+    private final int requests;
+    private final int concurrency;
+    private final int hosts;
+    private final int batchSize;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final List<String> failures = new ArrayList<>();
+
+    private LoadTest(FakeSiteFarm farm, SafeBrowsingStub safeBrowsing, String baseUrl, Map<String, Integer> options) {
+        this.farm = farm;
+        this.safeBrowsing = safeBrowsing;
+        this.baseUrl = baseUrl;
+        this.requests = options.getOrDefault("requests", 2000);
+        this.concurrency = options.getOrDefault("concurrency", 32);
+        this.hosts = Math.min(FakeSiteFarm.MAX_HOSTS, options.getOrDefault("hosts", 50));
+        this.batchSize = options.getOrDefault("batch", 20);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Integer> options = parse(args);
+        Path workDir = Files.createTempDirectory("link-checker-loadtest");
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<String> failures;
+        try (FakeSiteFarm farm = FakeSiteFarm.start(workDir);
+             SafeBrowsingStub safeBrowsing = SafeBrowsingStub.start();
+             ConfigurableApplicationContext app = SpringApplication.run(Main.class,
+                     "--server.port=0",
+                     "--app.cache.store.enabled=false",
+                     "--app.dns.block-private=false",
+                     "--app.rdap.enabled=false",
+                     "--app.safe-browsing.mode=lookup",
+                     "--app.safe-browsing.api-key=loadtest",
+                     "--app.safe-browsing.base-url=" + safeBrowsing.baseUrl(),
+                     "--logging.level.root=WARN",
+                     // Пулы приложения останавливаются после Tomcat, предупреждения об их потоках — шум.
+                     "--logging.level.org.apache.catalina.loader=ERROR")) {
+            String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            LoadTest loadTest = new LoadTest(farm, safeBrowsing, baseUrl, options);
+            loadTest.run();
+            failures = loadTest.failures;
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.println();
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf("requests=%d concurrency=%d hosts=%d batch=%d%n%n", requests, concurrency, hosts, batchSize);
+        System.out.printf("%-12s %8s %7s %10s %9s %9s %9s %10s %8s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms", "outbound", "conns");
+
+        // Холодный прогон: каждая ссылка новая, общие данные по сайту кешируются на origin.
+        scenario("check-cold", requests, i -> get("/api/check?link=" + encode(link(i, "/page/"))));
+        // Повторные ссылки — ответ из кеша результатов.
+        long warmOutbound = scenario("check-warm", requests, i -> get("/api/check?link=" + encode(link(i, "/page/"))));
+        if (warmOutbound > 0) {
+            failures.add("check-warm: " + warmOutbound + " исходящих запросов при повторных ссылках");
+        }
+        scenario("check-text", Math.max(1, requests / batchSize), i -> {
+            StringBuilder text = new StringBuilder("Ссылки из письма:\n");
+            for (int j = 0; j < batchSize; j++) {
+                text.append(link(i * batchSize + j, "/text/")).append('\n');
+            }
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/advanced/check-text"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(new JSONObject().put("text", text).toString()))
+                    .timeout(Duration.ofSeconds(120))
+                    .build();
+        });
+
+        System.out.println();
+        System.out.printf("%-12s %10s %8s%n", "site", "requests", "conns");
+        for (FakeSiteFarm.Kind kind : FakeSiteFarm.Kind.values()) {
+            System.out.printf("%-12s %10d %8d%n", kind.name().toLowerCase(), farm.requests(kind), farm.connections(kind));
+        }
+        System.out.printf("%nsafe browsing: %d requests, %d urls%n", safeBrowsing.requests(), safeBrowsing.urls());
+        printStats();
+    }
+
+    /**
+     * Прогоняет сценарий и возвращает число исходящих запросов к сайтам за время прогона.
+     */
+    private long scenario(String name, int count, IntFunction<HttpRequest> request) throws InterruptedException {
+        long outboundBefore = outboundRequests();
+        long connectionsBefore = outboundConnections();
+        long[] latencies = new long[count];
+        LongAdder errors = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, CheckExecutorConfig.namedThreads("load-"));
+        long started = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < count) {
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request.apply(i), HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() >= 300) {
+                            errors.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Arrays.sort(latencies);
+        long outbound = outboundRequests() - outboundBefore;
+        System.out.printf("%-12s %8d %7d %10.1f %9.1f %9.1f %9.1f %10d %8d%n",
+                name, count, errors.sum(), count / seconds,
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                millis(latencies[latencies.length - 1]),
+                outbound, outboundConnections() - connectionsBefore);
+        if (errors.sum() > 0) {
+            failures.add(name + ": " + errors.sum() + " ошибок из " + count);
+        }
+        return outbound;
+    }
+
+    /**
+     * Ссылка номер i: вид сайта выбирается по доле в MIX, хост — из hosts адресов этого вида.
+     */
+    private String link(int i, String prefix) {
+        int bucket = Math.floorMod(i * 31 + 7, 100);
+        for (Map.Entry<FakeSiteFarm.Kind, Integer> entry : MIX.entrySet()) {
+            bucket -= entry.getValue();
+            if (bucket < 0) {
+                return farm.url(entry.getKey(), (i / 3) % hosts, prefix + i);
+            }
+        }
+        return farm.url(FakeSiteFarm.Kind.FAST, i % hosts, prefix + i);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private long outboundRequests() {
+        long total = 0;
+        for (FakeSiteFarm.Kind kind : FakeSiteFarm.Kind.values()) {
+            total += farm.requests(kind);
+        }
+        return total;
+    }
+
+    private long outboundConnections() {
+        long total = 0;
+        for (FakeSiteFarm.Kind kind : FakeSiteFarm.Kind.values()) {
+            total += farm.connections(kind);
+        }
+        return total;
+    }
+
+    private void printStats() throws Exception {
+        HttpResponse<String> response = client.send(get("/api/stats"), HttpResponse.BodyHandlers.ofString());
+        System.out.println("/api/stats: " + response.body());
+
+        List<String> outbound = new ArrayList<>();
+        HttpResponse<String> prometheus = client.send(get("/actuator/prometheus"), HttpResponse.BodyHandlers.ofString());
+        for (String line : prometheus.body().split("\n")) {
+            if (line.startsWith("linkchecker_outbound_requests_total")) {
+                outbound.add(line);
+            }
+        }
+        System.out.println(String.join("\n", outbound));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> parse(String[] args) {
+        Map<String, Integer> options = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Ожидается имя=число: " + arg);
+            }
+            options.put(option.substring(0, eq), Integer.parseInt(option.substring(eq + 1)));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Заглушка Safe Browsing Lookup API (v4/threatMatches:find). Опасными
+ * считаются ссылки, в пути которых есть /malware/.
+ */
+final class SafeBrowsingStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, CheckExecutorConfig.namedThreads("sb-stub-"));
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder urls = new LongAdder();
+
+    private SafeBrowsingStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        server.createContext("/v4/threatMatches:find", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static SafeBrowsingStub start() throws IOException {
+        return new SafeBrowsingStub();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long urls() {
+        return urls.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.increment();
+            JSONObject request = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            JSONArray entries = request.getJSONObject("threatInfo").getJSONArray("threatEntries");
+            urls.add(entries.length());
+
+            JSONArray matches = new JSONArray();
+            for (int i = 0; i < entries.length(); i++) {
+                String url = entries.getJSONObject(i).getString("url");
+                if (url.contains("/malware/")) {
+                    matches.put(new JSONObject()
+                            .put("threatType", "MALWARE")
+                            .put("threat", new JSONObject().put("url", url)));
+                }
+            }
+            JSONObject response = new JSONObject();
+            if (!matches.isEmpty()) {
+                response.put("matches", matches);
+            }
+
+            byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+}
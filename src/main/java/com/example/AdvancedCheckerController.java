@@ -1,232 +1,202 @@
 package com.example;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import java.io.*;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/advanced")
 @CrossOrigin(origins = "*")
 public class AdvancedCheckerController {
 
-    private final CheckerController checkerController;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final MediaType NDJSON_TYPE = MediaType.parseMediaType(NDJSON);
 
-    public AdvancedCheckerController(CheckerController checkerController) {
-        this.checkerController = checkerController;
+    private final BatchChecker batchChecker;
+    private final CheckMetrics metrics;
+
+    @Value("${app.batch.stream-timeout:PT10M}")
+    private Duration streamTimeout;
+
+    public AdvancedCheckerController(BatchChecker batchChecker, CheckMetrics metrics) {
+        this.batchChecker = batchChecker;
+        this.metrics = metrics;
     }
 
     @PostMapping("/check-file")
-    public ResponseEntity<?> checkFile(@RequestParam("file") MultipartFile file) {
+    public CompletableFuture<ResponseEntity<?>> checkFile(@RequestParam("file") MultipartFile file) {
         try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body(
-                        Map.of("error", "Файл пустой")
-                );
-            }
-
-            if (file.getSize() > 10 * 1024 * 1024) {
-                return ResponseEntity.badRequest().body(
-                        Map.of("error", "Файл слишком большой (макс. 10MB)")
-                );
-            }
-
-            String fileName = file.getOriginalFilename().toLowerCase();
-            String content;
-
-            if (fileName.endsWith(".txt") || fileName.endsWith(".html") || fileName.endsWith(".htm")) {
-         
-                content = new String(file.getBytes(), "UTF-8");
-
-            } else if (fileName.endsWith(".docx")) {
-               
-                content = extractTextFromDocx(file.getInputStream());
-
-            } else if (fileName.endsWith(".pdf")) {
-           
-                content = extractTextFromPDF(file.getInputStream());
-
-            } else if (fileName.endsWith(".doc")) {
-              
-                return ResponseEntity.badRequest().body(
-                        Map.of("error", "Формат .doc не поддерживается. Используйте .docx или .txt")
-                );
-
-            } else {
-                return ResponseEntity.badRequest().body(
-                        Map.of("error", "Неподдерживаемый формат файла")
-                );
-            }
-
-            Set<String> urls = extractUrlsFromText(content);
+            Set<String> urls = readFileLinks(file);
 
             if (urls.isEmpty()) {
-                return ResponseEntity.ok(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of(
                         "message", "В файле не найдено ссылок",
                         "fileName", file.getOriginalFilename(),
                         "fileSize", formatFileSize(file.getSize()),
                         "totalUrlsFound", 0,
                         "checkedUrls", 0,
                         "results", List.of()
-                ));
+                )));
             }
 
-            List<Map<String, Object>> results = new ArrayList<>();
-            int checkedCount = 0;
-
-            for (String url : urls) {
-                if (checkedCount >= 50) { 
-                    break;
-                }
-
-                try {
-                    ResponseEntity<?> response = checkerController.check(url);
-                    if (response.getStatusCode().is2xxSuccessful()) {
-                        Object body = response.getBody();
-                        if (body instanceof CheckerController.SiteResult) {
-                            CheckerController.SiteResult siteResult = (CheckerController.SiteResult) body;
-                            results.add(Map.of(
-                                    "url", url,
-                                    "safeBrowsing", siteResult.safeBrowsing(),
-                                    "score", siteResult.score(),
-                                    "level", siteResult.level(),
-                                    "https", siteResult.https(),
-                                    "validSSL", siteResult.validSSL()
-                            ));
-                            checkedCount++;
-                        }
-                    }
-                } catch (Exception e) {
-        
-                }
-            }
+            metrics.recordBatch("check-file", urls.size());
+            // Имя и размер читаются сейчас: после завершения запроса загруженный файл удаляется.
+            String fileName = file.getOriginalFilename();
+            String fileSize = formatFileSize(file.getSize());
+            return batchChecker.checkAllAsync(urls, outcome -> {
+            }).<ResponseEntity<?>>thenApply(outcomes -> {
+                List<Map<String, Object>> results = toResults(outcomes, true);
+                long checkedCount = outcomes.stream().filter(BatchChecker.Outcome::succeeded).count();
 
-            return ResponseEntity.ok(Map.of(
-                    "fileName", file.getOriginalFilename(),
-                    "fileSize", formatFileSize(file.getSize()),
-                    "totalUrlsFound", urls.size(),
-                    "checkedUrls", checkedCount,
-                    "results", results,
-                    "processingTime", Instant.now().toString()
+                return ResponseEntity.ok(Map.of(
+                        "fileName", fileName,
+                        "fileSize", fileSize,
+                        "totalUrlsFound", urls.size(),
+                        "checkedUrls", checkedCount,
+                        "failedUrls", outcomes.size() - checkedCount,
+                        "results", results,
+                        "processingTime", Instant.now().toString()
+                ));
+            }).exceptionally(e -> ResponseEntity.internalServerError().body(
+                    Map.of("error", "Внутренняя ошибка: " + e.getMessage())
             ));
 
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
+                    Map.of("error", e.getMessage())
+            ));
         } catch (IOException e) {
-            return ResponseEntity.badRequest().body(
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
                     Map.of("error", "Ошибка чтения файла: " + e.getMessage())
-            );
+            ));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body(
                     Map.of("error", "Внутренняя ошибка: " + e.getMessage())
-            );
+            ));
         }
     }
 
-    private String extractTextFromDocx(InputStream inputStream) throws IOException {
-        StringBuilder text = new StringBuilder();
-
-        try (ZipInputStream zipInputStream = new ZipInputStream(inputStream)) {
-            ZipEntry entry;
+    @PostMapping(value = "/check-file/stream", produces = NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> checkFileStream(@RequestParam("file") MultipartFile file) {
+        try {
+            Set<String> urls = readFileLinks(file);
+            Map<String, Object> start = new LinkedHashMap<>();
+            start.put("fileName", file.getOriginalFilename());
+            start.put("fileSize", formatFileSize(file.getSize()));
+            return ResponseEntity.ok().contentType(NDJSON_TYPE).body(streamResults("check-file-stream", urls, start, true));
+        } catch (IllegalArgumentException e) {
+            return errorStream(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            return errorStream(HttpStatus.BAD_REQUEST, "Ошибка чтения файла: " + e.getMessage());
+        }
+    }
 
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-              
-                if (entry.getName().equals("word/document.xml") ||
-                        entry.getName().endsWith(".xml")) {
+    private Set<String> readFileLinks(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Файл пустой");
+        }
 
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    byte[] buffer = new byte[1024];
-                    int len;
+        if (file.getSize() > 10 * 1024 * 1024) {
+            throw new IllegalArgumentException("Файл слишком большой (макс. 10MB)");
+        }
 
-                    while ((len = zipInputStream.read(buffer)) > 0) {
-                        baos.write(buffer, 0, len);
-                    }
+        return DocumentLinkReader.readUpload(file.getOriginalFilename(), file.getInputStream());
+    }
 
-                    String xmlContent = baos.toString("UTF-8");
-                 
-                    text.append(extractTextFromXML(xmlContent));
-                }
-                zipInputStream.closeEntry();
+    // Каждая строка ответа — отдельный JSON: start, затем result по мере готовности, в конце summary.
+    // Если клиент отключился или истёк stream-timeout, оставшиеся ссылки не проверяются.
+    private ResponseBodyEmitter streamResults(String endpoint, Set<String> urls, Map<String, Object> start,
+                                              boolean detailed) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+        List<String> selected = batchChecker.selectLinks(urls);
+        metrics.recordBatch(endpoint, selected.size());
+        metrics.streamsInFlight().incrementAndGet();
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("type", "start");
+        header.putAll(start);
+        header.put("totalUrlsFound", urls.size());
+        header.put("urlsToCheck", selected.size());
+        sendLine(emitter, header);
+
+        CompletableFuture<Void> abandoned = new CompletableFuture<>();
+        CompletableFuture<List<BatchChecker.Outcome>> batch = batchChecker.checkAllAsync(selected, outcome -> {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "result");
+            record.putAll(outcome.toMap(detailed));
+            if (!sendLine(emitter, record)) {
+                abandoned.complete(null);
             }
-        }
-
-        return text.toString();
+        });
+        abandoned.thenRun(() -> batch.cancel(false));
+        emitter.onTimeout(() -> abandoned.complete(null));
+        emitter.onError(error -> abandoned.complete(null));
+        emitter.onCompletion(() -> abandoned.complete(null));
+
+        batch.whenComplete((outcomes, error) -> {
+            metrics.streamsInFlight().decrementAndGet();
+            if (batch.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                sendLine(emitter, Map.of("type", "error", "error", "Внутренняя ошибка: " + error.getMessage()));
+            } else {
+                long checkedCount = outcomes.stream().filter(BatchChecker.Outcome::succeeded).count();
+                sendLine(emitter, Map.of(
+                        "type", "summary",
+                        "totalUrlsFound", urls.size(),
+                        "checkedUrls", checkedCount,
+                        "failedUrls", outcomes.size() - checkedCount,
+                        "processingTime", Instant.now().toString()
+                ));
+            }
+            emitter.complete();
+        });
+        return emitter;
     }
 
-    private String extractTextFromXML(String xml) {
-   
-        return xml.replaceAll("<[^>]+>", " ")
-                .replaceAll("\\s+", " ")
-                .trim();
+    private ResponseEntity<ResponseBodyEmitter> errorStream(HttpStatus status, String message) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        sendLine(emitter, Map.of("type", "error", "error", message));
+        emitter.complete();
+        return ResponseEntity.status(status).contentType(NDJSON_TYPE).body(emitter);
     }
 
-    private String extractTextFromPDF(InputStream inputStream) throws IOException {
-        
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        StringBuilder text = new StringBuilder();
-        String line;
-
-        while ((line = reader.readLine()) != null) {
-        
-            if (line.contains("http://") || line.contains("https://") ||
-                    line.matches(".*[a-zA-Z0-9]\\.[a-zA-Z]{2,}.*")) {
-                text.append(line).append("\n");
+    // false, если клиент отключился и строку отправить не удалось.
+    private boolean sendLine(ResponseBodyEmitter emitter, Map<String, ?> record) {
+        synchronized (emitter) {
+            try {
+                emitter.send(record, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                return false;
             }
         }
-
-        return text.toString();
     }
 
     private Set<String> extractUrlsFromText(String text) {
-        Set<String> urls = new LinkedHashSet<>();
-
         if (text == null || text.trim().isEmpty()) {
-            return urls;
-        }
-
-        String urlRegex = "\\b(?:https?|ftp)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
-        Pattern urlPattern = Pattern.compile(urlRegex, Pattern.CASE_INSENSITIVE);
-        Matcher urlMatcher = urlPattern.matcher(text);
-
-        while (urlMatcher.find()) {
-            String url = urlMatcher.group();
-           
-            if (!url.startsWith("http://") && !url.startsWith("https://") && !url.startsWith("ftp://")) {
-                url = "https://" + url;
-            }
-            urls.add(url);
+            return new LinkedHashSet<>();
         }
+        return UrlExtractor.extract(text);
+    }
 
-        String domainRegex = "\\b(?:[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?\\.)+[a-zA-Z]{2,}\\b";
-        Pattern domainPattern = Pattern.compile(domainRegex, Pattern.CASE_INSENSITIVE);
-        Matcher domainMatcher = domainPattern.matcher(text);
-
-        while (domainMatcher.find()) {
-            String domain = domainMatcher.group();
-        
-            if (!domain.contains("@") &&
-                    !domain.startsWith("localhost") &&
-                    !domain.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
-
-                boolean isPartOfUrl = false;
-                for (String url : urls) {
-                    if (url.contains(domain)) {
-                        isPartOfUrl = true;
-                        break;
-                    }
-                }
-
-                if (!isPartOfUrl) {
-                    urls.add("https://" + domain);
-                }
-            }
+    private List<Map<String, Object>> toResults(List<BatchChecker.Outcome> outcomes, boolean detailed) {
+        List<Map<String, Object>> results = new ArrayList<>(outcomes.size());
+        for (BatchChecker.Outcome outcome : outcomes) {
+            results.add(outcome.toMap(detailed));
         }
-
-        return urls;
+        return results;
     }
 
     private String formatFileSize(long bytes) {
@@ -235,66 +205,60 @@ public class AdvancedCheckerController {
         return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
     }
 
+    @PostMapping(value = "/check-text/stream", produces = NDJSON)
+    public ResponseEntity<ResponseBodyEmitter> checkTextStream(@RequestBody Map<String, String> request) {
+        String text = request.get("text");
+
+        if (text == null || text.trim().isEmpty()) {
+            return errorStream(HttpStatus.BAD_REQUEST, "Текст не может быть пустым");
+        }
+
+        Set<String> urls = extractUrlsFromText(text);
+        return ResponseEntity.ok().contentType(NDJSON_TYPE).body(streamResults("check-text-stream", urls, new LinkedHashMap<>(), false));
+    }
+
     @PostMapping("/check-text")
-    public ResponseEntity<?> checkText(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<?>> checkText(@RequestBody Map<String, String> request) {
         try {
             String text = request.get("text");
 
             if (text == null || text.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
                         Map.of("error", "Текст не может быть пустым")
-                );
+                ));
             }
 
             Set<String> urls = extractUrlsFromText(text);
 
             if (urls.isEmpty()) {
-                return ResponseEntity.ok(Map.of(
+                return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of(
                         "message", "В тексте не найдено ссылок",
                         "totalUrlsFound", 0,
                         "checkedUrls", 0,
                         "results", List.of()
-                ));
+                )));
             }
 
-            List<Map<String, Object>> results = new ArrayList<>();
-            int checkedCount = 0;
-
-            for (String url : urls) {
-                if (checkedCount >= 50) {
-                    break;
-                }
-
-                try {
-                    ResponseEntity<?> response = checkerController.check(url);
-                    if (response.getStatusCode().is2xxSuccessful()) {
-                        Object body = response.getBody();
-                        if (body instanceof CheckerController.SiteResult) {
-                            CheckerController.SiteResult siteResult = (CheckerController.SiteResult) body;
-                            results.add(Map.of(
-                                    "url", url,
-                                    "safeBrowsing", siteResult.safeBrowsing(),
-                                    "score", siteResult.score(),
-                                    "level", siteResult.level()
-                            ));
-                            checkedCount++;
-                        }
-                    }
-                } catch (Exception e) {
-                
-                }
-            }
+            metrics.recordBatch("check-text", urls.size());
+            return batchChecker.checkAllAsync(urls, outcome -> {
+            }).<ResponseEntity<?>>thenApply(outcomes -> {
+                List<Map<String, Object>> results = toResults(outcomes, false);
+                long checkedCount = outcomes.stream().filter(BatchChecker.Outcome::succeeded).count();
 
-            return ResponseEntity.ok(Map.of(
-                    "totalUrlsFound", urls.size(),
-                    "checkedUrls", checkedCount,
-                    "results", results
+                return ResponseEntity.ok(Map.of(
+                        "totalUrlsFound", urls.size(),
+                        "checkedUrls", checkedCount,
+                        "failedUrls", outcomes.size() - checkedCount,
+                        "results", results
+                ));
+            }).exceptionally(e -> ResponseEntity.internalServerError().body(
+                    Map.of("error", "Ошибка обработки текста: " + e.getMessage())
             ));
 
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body(
                     Map.of("error", "Ошибка обработки текста: " + e.getMessage())
-            );
+            ));
         }
     }
 }
@@ -0,0 +1,132 @@
+package com.example;
+
+import java.util.Locale;
+import java.util.function.BiConsumer;
+
+/**
+ * Потоковый разбор HTML-страницы: находит теги &lt;a&gt; и отдаёт пары
+ * (href, текст ссылки). Полноценное дерево документа не строится, память
+ * ограничена длиной одного тега и текста одной ссылки.
+ */
+final class AnchorScanner {
+
+    private static final int MAX_TAG_LENGTH = 4096;
+    private static final int MAX_TEXT_LENGTH = 256;
+
+    private final BiConsumer<String, String> onAnchor;
+    private final StringBuilder tag = new StringBuilder(256);
+    private final StringBuilder text = new StringBuilder(64);
+    private boolean inTag;
+    private boolean tagOverflow;
+    private char quote;
+    private String href;
+
+    AnchorScanner(BiConsumer<String, String> onAnchor) {
+        this.onAnchor = onAnchor;
+    }
+
+    void accept(char[] buffer, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(buffer[i]);
+        }
+    }
+
+    void accept(char c) {
+        if (!inTag) {
+            if (c == '<') {
+                inTag = true;
+                tagOverflow = false;
+                quote = 0;
+                tag.setLength(0);
+            } else if (href != null && text.length() < MAX_TEXT_LENGTH) {
+                text.append(Character.isWhitespace(c) ? ' ' : c);
+            }
+            return;
+        }
+
+        // Внутри тега '>' в кавычках не закрывает тег: <a title="a > b" href=...>
+        if (quote != 0) {
+            if (c == quote) {
+                quote = 0;
+            }
+        } else if (c == '"' || c == '\'') {
+            quote = c;
+        } else if (c == '>') {
+            inTag = false;
+            if (!tagOverflow) {
+                endTag();
+            }
+            return;
+        }
+
+        if (tag.length() < MAX_TAG_LENGTH) {
+            tag.append(c);
+        } else {
+            tagOverflow = true;
+        }
+    }
+
+    void finish() {
+        if (href != null) {
+            onAnchor.accept(href, text.toString().trim());
+            href = null;
+        }
+    }
+
+    private void endTag() {
+        String name = tagName();
+        if (name.equals("a")) {
+            finish();
+            String value = attribute("href");
+            if (value != null) {
+                href = value;
+                text.setLength(0);
+            }
+        } else if (name.equals("/a")) {
+            finish();
+        }
+    }
+
+    private String tagName() {
+        int end = tag.length() > 0 && tag.charAt(0) == '/' ? 1 : 0;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        return tag.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private String attribute(String name) {
+        String lower = tag.toString().toLowerCase(Locale.ROOT);
+        int from = 0;
+        while (true) {
+            int at = lower.indexOf(name, from);
+            if (at < 0) {
+                return null;
+            }
+            from = at + name.length();
+            if (at == 0 || !Character.isWhitespace(lower.charAt(at - 1))) {
+                continue;
+            }
+
+            int i = from;
+            while (i < lower.length() && Character.isWhitespace(lower.charAt(i))) i++;
+            if (i >= lower.length() || lower.charAt(i) != '=') {
+                continue;
+            }
+            i++;
+            while (i < lower.length() && Character.isWhitespace(lower.charAt(i))) i++;
+            if (i >= lower.length()) {
+                return null;
+            }
+
+            char q = tag.charAt(i);
+            if (q == '"' || q == '\'') {
+                int close = tag.indexOf(String.valueOf(q), i + 1);
+                return tag.substring(i + 1, close < 0 ? tag.length() : close).trim();
+            }
+            int end = i;
+            while (end < tag.length() && !Character.isWhitespace(tag.charAt(end))) end++;
+            return tag.substring(i, end);
+        }
+    }
+}
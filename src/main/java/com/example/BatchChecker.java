@@ -0,0 +1,272 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Параллельная проверка набора ссылок: общий лимит одновременных проверок
+ * на всё приложение (размер пула) и отдельный лимит на один хост.
+ * Место хоста занимается до отправки задачи в пул: ссылки сверх лимита
+ * ждут в очереди своего хоста и не держат потоки пула, нужные другим пакетам.
+ * Запись хоста удаляется, только когда у него нет ни идущих, ни ждущих проверок.
+ */
+@Component
+public class BatchChecker {
+
+    private final CheckerController checkerController;
+    private final SafeBrowsingClient safeBrowsing;
+    private final HostResolver resolver;
+    private final ExecutorService batchExecutor;
+    private final int maxUrls;
+    private final int perHost;
+    private final Map<String, HostSlots> hostSlots = new ConcurrentHashMap<>();
+
+    public BatchChecker(CheckerController checkerController,
+                        SafeBrowsingClient safeBrowsing,
+                        HostResolver resolver,
+                        CheckMetrics metrics,
+                        @Value("${app.batch.concurrency:16}") int concurrency,
+                        @Value("${app.batch.per-host:2}") int perHost,
+                        @Value("${app.batch.max-urls:50}") int maxUrls) {
+        this.checkerController = checkerController;
+        this.safeBrowsing = safeBrowsing;
+        this.resolver = resolver;
+        this.batchExecutor = metrics.monitorExecutor("batch",
+                Executors.newFixedThreadPool(concurrency, CheckExecutorConfig.namedThreads("batch-")));
+        this.perHost = perHost;
+        this.maxUrls = maxUrls;
+    }
+
+    public List<String> selectLinks(Collection<String> urls) {
+        return selectLinks(urls, maxUrls);
+    }
+
+    public List<String> selectLinks(Collection<String> urls, int limit) {
+        return new ArrayList<>(distinctLinks(urls, limit).values());
+    }
+
+    /**
+     * Проверка одной ссылки; future завершается результатом, в том числе при ошибке проверки.
+     */
+    public CompletableFuture<Outcome> checkAsync(String url) {
+        return submit(CheckerController.normalizeUrl(url), url);
+    }
+
+    public CompletableFuture<List<Outcome>> checkAllAsync(Collection<String> urls, Consumer<Outcome> onComplete) {
+        Map<String, String> links = distinctLinks(urls, maxUrls);
+        safeBrowsing.prefetch(links.keySet());
+        resolver.prefetch(links.keySet().stream()
+                .map(CheckerController::hostOf)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList());
+
+        Map<String, CompletableFuture<Outcome>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, String> link : interleaveByHost(links).entrySet()) {
+            CompletableFuture<Outcome> future = submit(link.getKey(), link.getValue());
+            future.whenComplete((outcome, error) -> {
+                if (outcome != null) {
+                    onComplete.accept(outcome);
+                }
+            });
+            futures.put(link.getKey(), future);
+        }
+
+        CompletableFuture<List<Outcome>> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<Outcome> outcomes = new ArrayList<>(futures.size());
+                    for (String normalizedLink : links.keySet()) {
+                        outcomes.add(futures.get(normalizedLink).join());
+                    }
+                    return outcomes;
+                });
+        // Отмена пакета снимает ещё не начатые проверки: они освобождают место хоста, не проверяя ссылку.
+        all.whenComplete((outcomes, error) -> {
+            if (all.isCancelled()) {
+                futures.values().forEach(future -> future.cancel(false));
+            }
+        });
+        return all;
+    }
+
+    @PreDestroy
+    public void stop() {
+        batchExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<Outcome> submit(String normalizedLink, String url) {
+        CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+        String host = slotKey(normalizedLink);
+        while (true) {
+            HostSlots slots = hostSlots.computeIfAbsent(host, key -> new HostSlots());
+            if (slots.offer(() -> dispatch(host, slots, outcome, url))) {
+                return outcome;
+            }
+            // Запись только что освободилась и удаляется — берём новую.
+        }
+    }
+
+    private void release(String host, HostSlots slots) {
+        if (slots.release()) {
+            hostSlots.remove(host, slots);
+        }
+    }
+
+    // Вызывается, когда место хоста уже занято; освобождается по завершении проверки.
+    private void dispatch(String host, HostSlots slots, CompletableFuture<Outcome> outcome, String url) {
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    if (!outcome.isDone()) {
+                        outcome.complete(checkOne(url));
+                    }
+                } finally {
+                    release(host, slots);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            outcome.complete(new Outcome(url, null, "Проверка прервана"));
+            release(host, slots);
+        }
+    }
+
+    private Outcome checkOne(String url) {
+        try {
+            ResponseEntity<?> response = checkerController.check(url).join();
+            Object body = response.getBody();
+            if (response.getStatusCode().is2xxSuccessful() && body instanceof CheckerController.SiteResult result) {
+                return new Outcome(url, result, null);
+            }
+            if (body instanceof CheckerController.ErrorResponse error) {
+                return new Outcome(url, null, error.message());
+            }
+            return new Outcome(url, null, "Ошибка проверки: HTTP " + response.getStatusCode().value());
+        } catch (RuntimeException e) {
+            return new Outcome(url, null, "Ошибка при проверке сайта: " + e.getMessage());
+        }
+    }
+
+    private Map<String, String> distinctLinks(Collection<String> urls, int limit) {
+        Map<String, String> byNormalized = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (byNormalized.size() >= limit) {
+                break;
+            }
+            byNormalized.putIfAbsent(CheckerController.normalizeUrl(url), url);
+        }
+        return byNormalized;
+    }
+
+    // Чередуем хосты, чтобы ссылки разных сайтов шли в пул вперемешку, а не после всех ссылок первого.
+    private static Map<String, String> interleaveByHost(Map<String, String> links) {
+        Map<String, Deque<Map.Entry<String, String>>> byHost = new LinkedHashMap<>();
+        for (Map.Entry<String, String> link : links.entrySet()) {
+            byHost.computeIfAbsent(slotKey(link.getKey()), host -> new ArrayDeque<>()).add(link);
+        }
+
+        Map<String, String> ordered = new LinkedHashMap<>();
+        while (!byHost.isEmpty()) {
+            byHost.values().removeIf(queue -> {
+                Map.Entry<String, String> next = queue.poll();
+                ordered.put(next.getKey(), next.getValue());
+                return queue.isEmpty();
+            });
+        }
+        return ordered;
+    }
+
+    // Ссылка без хоста получает собственное место: с другими её объединять не по чему.
+    private static String slotKey(String normalizedLink) {
+        String host = CheckerController.hostOf(normalizedLink);
+        return host != null ? host : normalizedLink;
+    }
+
+    /**
+     * Места одного хоста: не больше perHost проверок сразу, остальные ждут
+     * в очереди и запускаются по мере завершения предыдущих. Освободившаяся
+     * запись помечается выведенной и новых проверок не принимает.
+     */
+    private final class HostSlots {
+
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+        private boolean retired;
+
+        /**
+         * false, если запись уже выведена и проверку нужно отдать новой записи хоста.
+         */
+        boolean offer(Runnable start) {
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                if (running >= perHost) {
+                    waiting.add(start);
+                    return true;
+                }
+                running++;
+            }
+            start.run();
+            return true;
+        }
+
+        /**
+         * true, если хост освободился и запись можно удалить.
+         */
+        boolean release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    retired = running == 0;
+                    return retired;
+                }
+            }
+            next.run();
+            return false;
+        }
+    }
+
+    public record Outcome(String url, CheckerController.SiteResult result, String error) {
+
+        public boolean succeeded() {
+            return result != null;
+        }
+
+        public Map<String, Object> toMap(boolean detailed) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("url", url);
+            if (result == null) {
+                map.put("error", error);
+                return map;
+            }
+
+            map.put("safeBrowsing", result.safeBrowsing());
+            map.put("score", result.score());
+            map.put("level", result.level());
+            if (detailed) {
+                map.put("https", result.https());
+                map.put("validSSL", result.validSSL());
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Сведения о TLS-сертификате хоста. Для холодного хоста выполняется только
+ * TLS-рукопожатие (без HTTP-запроса), результат хранится до notAfter
+ * сертификата, но не дольше app.tls.max-age.
+ */
+@Component
+public class CertificateInspector {
+
+    private static final int SAN_DNS_NAME = 2;
+    private static final int SAN_IP_ADDRESS = 7;
+
+    private final Cache<String, CertificateFacts> cache;
+    private final SingleFlight<String, CertificateFacts> inFlight = new SingleFlight<>();
+    private final SSLSocketFactory trustedSockets;
+    private final SSLSocketFactory capturingSockets;
+    private final HostHealth health;
+    private final CheckMetrics metrics;
+    private final int connectTimeoutMs;
+
+    public CertificateInspector(HostHealth health,
+                                CheckMetrics metrics,
+                                @Value("${app.tls.max-age:PT12H}") Duration maxAge,
+                                @Value("${app.tls.failure-ttl:PT5M}") Duration failureTtl,
+                                @Value("${app.tls.max-entries:50000}") long maxEntries,
+                                @Value("${app.timeout.connection:3000}") int connectTimeoutMs) throws GeneralSecurityException {
+        this.health = health;
+        this.metrics = metrics;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.trustedSockets = (SSLSocketFactory) SSLSocketFactory.getDefault();
+
+        // Второй контекст принимает любую цепочку: он нужен только для того,
+        // чтобы прочитать сертификат, которому стандартная проверка не доверяет.
+        SSLContext capturing = SSLContext.getInstance("TLS");
+        capturing.init(null, new TrustManager[]{new AcceptAllTrustManager()}, null);
+        this.capturingSockets = capturing.getSocketFactory();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, CertificateFacts>() {
+                    @Override
+                    public long expireAfterCreate(String hostPort, CertificateFacts facts, long currentTime) {
+                        if (facts.notAfter() == null) {
+                            return failureTtl.toNanos();
+                        }
+                        Duration untilExpiry = Duration.between(Instant.now(), facts.notAfter());
+                        if (untilExpiry.isNegative()) {
+                            return failureTtl.toNanos();
+                        }
+                        return Math.min(untilExpiry.toNanos(), maxAge.toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hostPort, CertificateFacts facts, long currentTime, long currentDuration) {
+                        return expireAfterCreate(hostPort, facts, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hostPort, CertificateFacts facts, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        metrics.monitorCache("certificates", cache);
+    }
+
+    public CertificateFacts inspect(String host, int port) {
+        String key = host.toLowerCase(Locale.ROOT) + ":" + port;
+        CertificateFacts cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return inFlight.execute(key, () -> {
+            CertificateFacts raced = cache.asMap().get(key);
+            if (raced != null) {
+                return raced;
+            }
+            CertificateFacts facts = handshake(host, port);
+            cache.put(key, facts);
+            return facts;
+        });
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private CertificateFacts handshake(String host, int port) {
+        String endpoint = HostHealth.endpoint(host, port);
+        if (!health.allowRequest(endpoint)) {
+            return CertificateFacts.failed("Хост временно исключён после серии ошибок");
+        }
+        try {
+            return CertificateFacts.of(host, true, peerCertificate(trustedSockets, host, port));
+        } catch (SSLHandshakeException untrusted) {
+            try {
+                return CertificateFacts.of(host, false, peerCertificate(capturingSockets, host, port));
+            } catch (IOException e) {
+                return CertificateFacts.failed(e.getMessage());
+            }
+        } catch (IOException e) {
+            return CertificateFacts.failed(e.getMessage());
+        }
+    }
+
+    private X509Certificate peerCertificate(SSLSocketFactory factory, String host, int port) throws IOException {
+        long started = System.nanoTime();
+        try (SSLSocket socket = (SSLSocket) factory.createSocket()) {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+            socket.setSoTimeout((int) health.timeoutFor(HostHealth.endpoint(host, port)).toMillis());
+
+            try {
+                SSLParameters parameters = socket.getSSLParameters();
+                parameters.setServerNames(List.of(new SNIHostName(host)));
+                socket.setSSLParameters(parameters);
+            } catch (IllegalArgumentException e) {
+                // IP-адрес или имя, недопустимое для SNI: рукопожатие без server_name
+            }
+
+            socket.startHandshake();
+            health.recordSuccess(CheckMetrics.TARGET_TLS, HostHealth.endpoint(host, port), System.nanoTime() - started);
+            metrics.recordOutbound(CheckMetrics.TARGET_TLS, true);
+            return (X509Certificate) socket.getSession().getPeerCertificates()[0];
+        } catch (SSLHandshakeException e) {
+            // сервер ответил, просто цепочка не прошла проверку
+            metrics.recordOutbound(CheckMetrics.TARGET_TLS, true);
+            throw e;
+        } catch (IOException e) {
+            health.recordFailure(CheckMetrics.TARGET_TLS, HostHealth.endpoint(host, port));
+            metrics.recordOutbound(CheckMetrics.TARGET_TLS, false);
+            throw e;
+        }
+    }
+
+    static boolean hostnameMatches(String host, X509Certificate certificate) {
+        String name = host.toLowerCase(Locale.ROOT);
+        try {
+            Collection<List<?>> alternativeNames = certificate.getSubjectAlternativeNames();
+            if (alternativeNames == null) {
+                return false;
+            }
+            for (List<?> entry : alternativeNames) {
+                if (entry.size() < 2) {
+                    continue;
+                }
+                Object type = entry.get(0);
+                String value = entry.get(1).toString().toLowerCase(Locale.ROOT);
+                if (Integer.valueOf(SAN_DNS_NAME).equals(type) && matchesPattern(name, value)
+                        || Integer.valueOf(SAN_IP_ADDRESS).equals(type) && name.equals(value)) {
+                    return true;
+                }
+            }
+        } catch (CertificateParsingException e) {
+            return false;
+        }
+        return false;
+    }
+
+    // Шаблон "*.example.com" покрывает ровно одну метку слева.
+    private static boolean matchesPattern(String host, String pattern) {
+        if (!pattern.startsWith("*.")) {
+            return host.equals(pattern);
+        }
+        int dot = host.indexOf('.');
+        return dot > 0 && host.substring(dot + 1).equals(pattern.substring(2));
+    }
+
+    public record CertificateFacts(boolean trusted, boolean hostnameMatch, Instant notBefore,
+                                   Instant notAfter, String issuer, String error) {
+
+        static CertificateFacts of(String host, boolean trusted, X509Certificate certificate) {
+            return new CertificateFacts(
+                    trusted,
+                    hostnameMatches(host, certificate),
+                    certificate.getNotBefore().toInstant(),
+                    certificate.getNotAfter().toInstant(),
+                    certificate.getIssuerX500Principal().getName(),
+                    null
+            );
+        }
+
+        static CertificateFacts failed(String error) {
+            return new CertificateFacts(false, false, null, null, null, error != null ? error : "TLS недоступен");
+        }
+
+        public boolean valid() {
+            Instant now = Instant.now();
+            return trusted && hostnameMatch && notAfter != null
+                    && !now.isBefore(notBefore) && now.isBefore(notAfter);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("trusted", trusted);
+            map.put("hostnameMatch", hostnameMatch);
+            if (notAfter != null) {
+                map.put("notBefore", notBefore.toString());
+                map.put("notAfter", notAfter.toString());
+                map.put("issuer", issuer);
+            }
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+
+    private static final class AcceptAllTrustManager implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class CheckExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService checkExecutor(@Value("${app.check.threads:64}") int threads, CheckMetrics metrics) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                namedThreads("check-")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return metrics.monitorExecutor("check", executor);
+    }
+
+    /**
+     * Пул для сетевых вызовов вспомогательных сервисов (Safe Browsing и т.п.).
+     * Этапы проверки в checkExecutor ждут их результата, поэтому эта работа не
+     * должна стоять в очереди того же пула за ними. При переполненной очереди
+     * задача отклоняется, и вызов завершается ошибкой, а не ждёт.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService networkExecutor(@Value("${app.network.threads:16}") int threads,
+                                           @Value("${app.network.max-queued:1000}") int maxQueued,
+                                           CheckMetrics metrics) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                namedThreads("network-")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return metrics.monitorExecutor("network", executor);
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.example;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновое задание на проверку набора ссылок. Результаты хранятся
+ * в порядке завершения, чтобы их можно было читать страницами по ходу работы.
+ */
+public class CheckJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, CANCELLED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant createdAt = Instant.now();
+    private final List<String> urls;
+    private final List<BatchChecker.Outcome> outcomes = new ArrayList<>();
+    private final AtomicInteger failed = new AtomicInteger();
+    private int nextIndex;
+    private int inFlight;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+
+    CheckJob(List<String> urls) {
+        this.urls = List.copyOf(urls);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public int total() {
+        return urls.size();
+    }
+
+    public synchronized int completed() {
+        return outcomes.size();
+    }
+
+    public Instant finishedAt() {
+        return finishedAt;
+    }
+
+    synchronized String nextUrl() {
+        if (status == Status.CANCELLED || nextIndex >= urls.size()) {
+            return null;
+        }
+        status = Status.RUNNING;
+        inFlight++;
+        return urls.get(nextIndex++);
+    }
+
+    synchronized int undispatched() {
+        return urls.size() - nextIndex;
+    }
+
+    // Ссылки, выданные на проверку и ещё не завершённые.
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized void record(BatchChecker.Outcome outcome) {
+        inFlight--;
+        if (status == Status.CANCELLED) {
+            return;
+        }
+        outcomes.add(outcome);
+        if (!outcome.succeeded()) {
+            failed.incrementAndGet();
+        }
+        if (outcomes.size() == urls.size()) {
+            status = Status.DONE;
+            finishedAt = Instant.now();
+        }
+    }
+
+    synchronized int cancel() {
+        if (status == Status.DONE || status == Status.CANCELLED) {
+            return 0;
+        }
+        int dropped = urls.size() - nextIndex;
+        status = Status.CANCELLED;
+        finishedAt = Instant.now();
+        return dropped;
+    }
+
+    public synchronized List<Map<String, Object>> results(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), outcomes.size());
+        int to = Math.min(from + Math.max(limit, 0), outcomes.size());
+        List<Map<String, Object>> page = new ArrayList<>(to - from);
+        for (BatchChecker.Outcome outcome : outcomes.subList(from, to)) {
+            page.add(outcome.toMap(true));
+        }
+        return page;
+    }
+
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("jobId", id);
+        summary.put("status", status);
+        summary.put("total", urls.size());
+        summary.put("completed", outcomes.size());
+        summary.put("failed", failed.get());
+        summary.put("progress", urls.isEmpty() ? 100.0 : Math.round(outcomes.size() * 1000.0 / urls.size()) / 10.0);
+        summary.put("createdAt", createdAt.toString());
+        if (finishedAt != null) {
+            summary.put("finishedAt", finishedAt.toString());
+        }
+        return summary;
+    }
+}
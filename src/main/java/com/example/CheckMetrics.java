@@ -0,0 +1,129 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики проверки ссылок (Micrometer, отдаются через /actuator/prometheus):
+ * длительность этапов, исходящие запросы по типу цели, состояние автоматов
+ * и таймауты внешних хостов, кеши, очереди и число проверок в работе.
+ * Счётчики создаются один раз и переиспользуются.
+ */
+@Component
+public class CheckMetrics {
+
+    public static final String TARGET_SITE = "site";
+    public static final String TARGET_TLS = "tls";
+    public static final String TARGET_SAFE_BROWSING = "safe-browsing";
+    public static final String TARGET_RDAP = "rdap";
+    public static final List<String> TARGETS = List.of(TARGET_SITE, TARGET_TLS, TARGET_SAFE_BROWSING, TARGET_RDAP);
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> checkTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outboundCounters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> batchSizes = new ConcurrentHashMap<>();
+    private final AtomicInteger checksInFlight = new AtomicInteger();
+    private final AtomicInteger streamsInFlight = new AtomicInteger();
+
+    public CheckMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("linkchecker.checks.in.flight", checksInFlight, AtomicInteger::get)
+                .description("Проверки, выполняющиеся прямо сейчас")
+                .register(registry);
+        Gauge.builder("linkchecker.streams.in.flight", streamsInFlight, AtomicInteger::get)
+                .description("Открытые NDJSON-потоки пакетной проверки")
+                .register(registry);
+    }
+
+    /**
+     * outcome: ok, timeout или error.
+     */
+    public void recordStage(String stage, long elapsedNanos, String outcome) {
+        stageTimers.computeIfAbsent(stage + '|' + outcome, key -> Timer.builder("linkchecker.stage.duration")
+                        .description("Длительность этапа проверки")
+                        .tag("stage", stage)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * source: cache (ответ из кеша), checked (выполнена полная проверка),
+     * refresh (фоновое обновление записи кеша) или filter (домен из списков).
+     */
+    public void recordCheck(String source, long elapsedNanos) {
+        checkTimers.computeIfAbsent(source, key -> Timer.builder("linkchecker.check.duration")
+                        .description("Длительность одной проверки ссылки")
+                        .tag("source", source)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutbound(String target, boolean success) {
+        String outcome = success ? "success" : "error";
+        outboundCounters.computeIfAbsent(target + '|' + outcome, key -> Counter.builder("linkchecker.outbound.requests")
+                        .description("Исходящие запросы по типу цели")
+                        .tag("target", target)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .increment();
+    }
+
+    public void recordBatch(String endpoint, int urls) {
+        batchSizes.computeIfAbsent(endpoint, key -> DistributionSummary.builder("linkchecker.batch.urls")
+                        .description("Число ссылок в пакетной проверке")
+                        .tag("endpoint", endpoint)
+                        .register(registry))
+                .record(urls);
+    }
+
+    public AtomicInteger checksInFlight() {
+        return checksInFlight;
+    }
+
+    public AtomicInteger streamsInFlight() {
+        return streamsInFlight;
+    }
+
+    public void monitorCache(String name, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    public ExecutorService monitorExecutor(String name, ExecutorService executor) {
+        return ExecutorServiceMetrics.monitor(registry, executor, name);
+    }
+
+    public <T> void gauge(String name, String description, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).description(description).register(registry);
+    }
+
+    /**
+     * Gauge с тегом target (одна из CheckMetrics.TARGETS); baseUnit может быть null.
+     */
+    public <T> void targetGauge(String name, String description, String target, String baseUnit,
+                                T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value)
+                .description(description)
+                .tag("target", target)
+                .baseUnit(baseUnit)
+                .register(registry);
+    }
+}
@@ -1,35 +1,59 @@
 package com.example;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
-import javax.net.ssl.HttpsURLConnection;
-import java.security.cert.X509Certificate;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class CheckerController {
 
-    @Value("${app.safe-browsing.api-key:}")
-    private String safeBrowsingApiKey;
-
-    private final Map<String, SiteResult> cache = new ConcurrentHashMap<>();
+    @Value("${app.check.stage-timeout:8000}")
+    private long stageTimeoutMs;
+
+    @Value("${app.check.deadline:10000}")
+    private long checkDeadlineMs;
+
+    private final ExecutorService checkExecutor;
+    private final ExecutorService requestExecutor;
+    private final SafeBrowsingClient safeBrowsing;
+    private final ResultCache cache;
+    private final HostFactsCache hostFacts;
+    private final SiteDiscovery discovery;
+    private final CertificateInspector certificates;
+    private final HostResolver resolver;
+    private final DomainAgeService domainAge;
+    private final HostHealth hostHealth;
+    private final CheckMetrics metrics;
+    private final DomainFilters filters;
+    private final SingleFlight<String, SiteResult> inFlight = new SingleFlight<>();
+    private static final List<String> LISTED_NOT_CHECKED = List.of(
+            "validSSL", "hasContact", "hasPrivacyPolicy", "ageMonths"
+    );
     private static final Pattern URL_PATTERN = Pattern.compile(
             "^(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]"
     );
@@ -37,198 +61,369 @@ public class CheckerController {
             "^((?!-)[A-Za-z0-9-]{1,63}(?<!-)\\.)+[A-Za-z]{2,6}$"
     );
 
+    public CheckerController(@Qualifier("checkExecutor") ExecutorService checkExecutor,
+                             ResultCache cache, HostFactsCache hostFacts,
+                             HostResolver resolver, SiteDiscovery discovery, CertificateInspector certificates,
+                             DomainAgeService domainAge, HostHealth hostHealth, SafeBrowsingClient safeBrowsing,
+                             CheckMetrics metrics, DomainFilters filters,
+                             @Value("${app.check.max-concurrent:128}") int maxConcurrent,
+                             @Value("${app.check.max-queued:2048}") int maxQueued) {
+        this.checkExecutor = checkExecutor;
+        ThreadPoolExecutor requests = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                CheckExecutorConfig.namedThreads("request-")
+        );
+        requests.allowCoreThreadTimeOut(true);
+        this.requestExecutor = metrics.monitorExecutor("requests", requests);
+        this.cache = cache;
+        this.hostFacts = hostFacts;
+        this.discovery = discovery;
+        this.certificates = certificates;
+        this.resolver = resolver;
+        this.domainAge = domainAge;
+        this.hostHealth = hostHealth;
+        this.metrics = metrics;
+        this.filters = filters;
+        this.safeBrowsing = safeBrowsing;
+    }
+
+    /**
+     * Ответ из кеша отдаётся сразу в потоке Tomcat. Новая проверка уходит в
+     * ограниченный пул app.check.max-concurrent с очередью app.check.max-queued,
+     * а поток Tomcat освобождается до её завершения; при переполнении — 503.
+     */
     @GetMapping("/check")
-    public ResponseEntity<?> check(@RequestParam String link) {
+    public CompletableFuture<ResponseEntity<?>> check(@RequestParam String link) {
+        long started = System.nanoTime();
         try {
            
             if (link == null || link.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
                         new ErrorResponse("Пожалуйста, укажите ссылку для проверки")
-                );
+                ));
             }
 
             String normalizedLink = normalizeUrl(link);
 
             if (!isValidUrl(normalizedLink)) {
-                return ResponseEntity.badRequest().body(
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
                         new ErrorResponse("Некорректный URL формат")
-                );
+                ));
             }
 
-            if (cache.containsKey(normalizedLink)) {
-                SiteResult cached = cache.get(normalizedLink);
-                if (Duration.between(cached.timestamp(), Instant.now()).toHours() < 24) {
-                    return ResponseEntity.ok(cached);
-                }
+            // Списки доменов проверяются до кеша, чтобы изменения в них действовали сразу.
+            DomainFilters.Verdict listed = filters.verdict(hostOf(normalizedLink));
+            if (listed != null) {
+                metrics.recordCheck("filter", System.nanoTime() - started);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(listedResult(normalizedLink, listed)));
             }
 
-            Map<String, Object> checks = performAllChecksSequentially(normalizedLink);
-
-            double score = calculateTrustScore(checks);
-            String level = determineTrustLevel(score);
-
-            SiteResult result = new SiteResult(
-                    normalizedLink,
-                    (Boolean) checks.get("https"),
-                    (Integer) checks.get("ageMonths"),
-                    (Boolean) checks.get("hasContact"),
-                    (Boolean) checks.get("safeBrowsing"),
-                    (Boolean) checks.get("validSSL"),
-                    (Boolean) checks.get("validDomain"),
-                    (Boolean) checks.get("hasPrivacyPolicy"),
-                    score,
-                    level,
-                    Instant.now(),
-                    checks
-            );
+            SiteResult cached = cache.get(normalizedLink);
+            if (cached != null) {
+                metrics.recordCheck("cache", System.nanoTime() - started);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(cached));
+            }
 
-            cache.put(normalizedLink, result);
-            return ResponseEntity.ok(result);
+            metrics.checksInFlight().incrementAndGet();
+            return inFlight.executeAsync(normalizedLink, () -> CompletableFuture.supplyAsync(() -> {
+                        SiteResult raced = cache.peek(normalizedLink);
+                        return raced != null ? raced : runChecks(normalizedLink, checkExecutor);
+                    }, requestExecutor))
+                    .<ResponseEntity<?>>thenApply(result -> {
+                        metrics.recordCheck("checked", System.nanoTime() - started);
+                        return ResponseEntity.ok(result);
+                    })
+                    .exceptionally(CheckerController::checkFailed)
+                    .whenComplete((response, error) -> metrics.checksInFlight().decrementAndGet());
 
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(
-                    new ErrorResponse("Ошибка при проверке сайта: " + e.getMessage())
+            return CompletableFuture.completedFuture(checkFailed(e));
+        }
+    }
+
+    // Вердикт по спискам не кешируется: после перезагрузки списка он меняется сразу.
+    // Сетевые проверки не выполнялись: их поля перечислены в details.notChecked,
+    // а safeBrowsing отражает вердикт списка.
+    private SiteResult listedResult(String url, DomainFilters.Verdict verdict) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("listed", true);
+        details.put("list", verdict.list());
+        details.put("matchedDomain", verdict.domain());
+        details.put("notChecked", LISTED_NOT_CHECKED);
+
+        double score = verdict.allowed() ? 100 : 0;
+        return new SiteResult(
+                url,
+                checkHttps(url),
+                DomainAgeService.UNKNOWN,
+                false,
+                verdict.allowed(),
+                false,
+                validateDomain(url),
+                false,
+                score,
+                TrustLevel.of(score).label(),
+                Instant.now(),
+                details
+        );
+    }
+
+    /**
+     * Повторная проверка уже закешированной ссылки в фоне (ResultRefresher).
+     * Этапы идут в переданном пуле, а не в checkExecutor, чтобы обновления
+     * не стояли в одной очереди с пользовательскими проверками. Объединяется
+     * с пользовательской проверкой той же ссылки, если она идёт.
+     */
+    SiteResult refresh(String normalizedLink, ExecutorService stageExecutor) {
+        long started = System.nanoTime();
+        SiteResult result = inFlight.execute(normalizedLink, () -> runChecks(normalizedLink, stageExecutor));
+        metrics.recordCheck("refresh", System.nanoTime() - started);
+        return result;
+    }
+
+    private static ResponseEntity<?> checkFailed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    new ErrorResponse("Слишком много проверок одновременно, повторите запрос позже")
             );
         }
+        return ResponseEntity.internalServerError().body(
+                new ErrorResponse("Ошибка при проверке сайта: " + cause.getMessage())
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        requestExecutor.shutdownNow();
+    }
+
+    private SiteResult runChecks(String normalizedLink, ExecutorService stageExecutor) {
+        Map<String, Object> checks = performAllChecks(normalizedLink, stageExecutor);
+
+        double score = calculateTrustScore(checks);
+        String level = TrustLevel.of(score).label();
+
+        SiteResult result = new SiteResult(
+                normalizedLink,
+                flag(checks, "https", false),
+                (Integer) checks.getOrDefault("ageMonths", -1),
+                flag(checks, "hasContact", false),
+                flag(checks, "safeBrowsing", true),
+                flag(checks, "validSSL", false),
+                flag(checks, "validDomain", false),
+                flag(checks, "hasPrivacyPolicy", false),
+                score,
+                level,
+                Instant.now(),
+                checks
+        );
+
+        // Неразрешимый хост мог быть временной ошибкой DNS: такой результат не кешируем,
+        // повторная проверка в пределах app.dns.negative-ttl всё равно ответит из кеша DNS.
+        if (!Boolean.FALSE.equals(checks.get("resolvable"))) {
+            cache.put(normalizedLink, result);
+        }
+        return result;
     }
 
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
+        CacheStats cacheStats = cache.stats();
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalChecked", cache.size());
-        stats.put("averageScore",
-                cache.values().stream()
-                        .mapToDouble(SiteResult::score)
-                        .average()
-                        .orElse(0.0)
-        );
+        stats.put("averageScore", cache.averageScore());
+        stats.put("cacheHits", cacheStats.hitCount());
+        stats.put("cacheMisses", cacheStats.missCount());
+        stats.put("cacheEvictions", cacheStats.evictionCount());
+        stats.put("cacheDiskHits", cache.diskHits());
+        stats.put("cacheStaleHits", cache.staleHits());
+        stats.put("allowListDomains", filters.allowSize());
+        stats.put("denyListDomains", filters.denySize());
+        stats.put("hostsCached", hostFacts.size());
+        stats.put("hostCacheHitRate", hostFacts.hitRate());
+        stats.put("hostsTracked", hostHealth.trackedHosts());
+        stats.put("openCircuits", hostHealth.openCircuits());
         return ResponseEntity.ok(stats);
     }
 
-    @Scheduled(fixedRate = 3600000)
-    public void clearOldCache() {
-        Instant cutoff = Instant.now().minus(Duration.ofHours(24));
-        cache.entrySet().removeIf(entry ->
-                entry.getValue().timestamp().isBefore(cutoff)
-        );
+    @GetMapping("/stats/hosts")
+    public ResponseEntity<List<Map<String, Object>>> getHostStats(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(hostHealth.slowest(Math.min(Math.max(limit, 1), 500)));
     }
 
-    private Map<String, Object> performAllChecksSequentially(String url) {
+    private Map<String, Object> performAllChecks(String url, ExecutorService stageExecutor) {
         Map<String, Object> results = new HashMap<>();
 
         results.put("https", checkHttps(url));
-        results.put("validSSL", checkSSL(url));
-        results.put("validDomain", validateDomain(url));
+        results.put("ageMonths", DomainAgeService.UNKNOWN);
+
+        long stageTimeout = Math.min(stageTimeoutMs, checkDeadlineMs);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(checkDeadlineMs);
+
+        // Несуществующий или внутренний хост дальше не проверяем: все сетевые
+        // проверки для него закончились бы ошибкой или таймаутом.
+        String host = hostOf(url);
+        HostResolver.Resolution resolution = resolveHost(host, stageTimeout, stageExecutor);
+        if (resolution != null && !resolution.resolvable()) {
+            results.put("validDomain", validateDomain(url));
+            results.put("resolvable", false);
+            results.put("dnsError", resolution.error());
+            return results;
+        }
 
-        results.put("ageMonths", getDomainAgeMonths(url));
-        results.put("hasContact", hasContactPageWithRetry(url, 2));
-        results.put("hasPrivacyPolicy", hasPrivacyPolicyWithRetry(url, 2));
-        results.put("safeBrowsing", checkSafeBrowsing(url));
+        // Возраст домена не задерживает ответ: берём его, только если RDAP
+        // успел ответить, пока шли остальные проверки.
+        CompletableFuture<Integer> age = host != null
+                ? domainAge.ageMonths(host)
+                : CompletableFuture.completedFuture(DomainAgeService.UNKNOWN);
+
+        Map<String, CompletableFuture<Object>> stages = new LinkedHashMap<>();
+        stages.put("safeBrowsing", runStage("safeBrowsing", stageExecutor, () -> checkSafeBrowsing(url), stageTimeout));
+
+        // Факты о сайте общие для всех его страниц: пока идёт проверка Safe Browsing
+        // для конкретной ссылки, берём их из кеша или собираем один раз на origin.
+        String origin = HostFactsCache.originOf(url);
+        List<String> unknown = new ArrayList<>();
+        if (origin != null) {
+            HostFactsCache.HostFacts facts = hostFacts.get(origin, () -> collectHostFacts(origin, stageTimeout, deadline, stageExecutor));
+            results.putAll(facts.checks());
+            unknown.addAll(facts.unknown());
+        } else {
+            results.put("validDomain", validateDomain(url));
+            unknown.addAll(List.of("validSSL", "hasContact", "hasPrivacyPolicy"));
+        }
+
+        awaitStages(stages, deadline, results, unknown);
 
+        Integer ageMonths = age.getNow(null);
+        if (ageMonths != null) {
+            results.put("ageMonths", ageMonths);
+        } else {
+            unknown.add("ageMonths");
+        }
+
+        if (!unknown.isEmpty()) {
+            results.put("unknown", unknown);
+        }
         return results;
     }
 
-    private boolean checkHttps(String urlString) {
+    private HostResolver.Resolution resolveHost(String host, long timeoutMs, ExecutorService stageExecutor) {
+        if (host == null) {
+            return null;
+        }
+        HostResolver.Resolution cached = resolver.peek(host);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            URL url = new URL(urlString);
-            return "https".equals(url.getProtocol());
-        } catch (Exception e) {
-            return false;
+            return runStage("dns", stageExecutor, () -> resolver.resolve(host), timeoutMs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // DNS не ответил вовремя: продолжаем обычную проверку
+            return null;
         }
     }
 
-    private boolean checkSSL(String urlString) {
-        if (!urlString.startsWith("https://")) return false;
+    private HostFactsCache.HostFacts collectHostFacts(String origin, long stageTimeout, long deadline,
+                                                     ExecutorService stageExecutor) {
+        Map<String, Object> checks = new HashMap<>();
+        checks.put("validDomain", validateDomain(origin));
 
-        try {
-            URL url = new URL(urlString);
-            HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            connection.connect();
+        Map<String, CompletableFuture<Object>> stages = new LinkedHashMap<>();
+        if (origin.startsWith("https://")) {
+            stages.put("validSSL", runStage("tls", stageExecutor, () -> inspectCertificate(origin), stageTimeout));
+        } else {
+            checks.put("validSSL", false);
+        }
+        stages.put("pages", runStage("pages", stageExecutor, () -> discovery.discover(origin), stageTimeout));
 
-            X509Certificate cert = (X509Certificate) connection.getServerCertificates()[0];
-            boolean valid = new Date().before(cert.getNotAfter());
+        List<String> unknown = new ArrayList<>();
+        awaitStages(stages, deadline, checks, unknown);
 
-            connection.disconnect();
-            return valid;
-        } catch (Exception e) {
-            return false;
+        if (checks.get("validSSL") instanceof CertificateInspector.CertificateFacts certificate) {
+            checks.put("validSSL", certificate.valid());
+            checks.put("certificate", certificate.toMap());
         }
+        if (checks.remove("pages") instanceof SiteDiscovery.Pages pages) {
+            checks.put("hasContact", pages.hasContact());
+            checks.put("hasPrivacyPolicy", pages.hasPrivacyPolicy());
+        } else if (unknown.remove("pages")) {
+            unknown.add("hasContact");
+            unknown.add("hasPrivacyPolicy");
+        }
+        return new HostFactsCache.HostFacts(Map.copyOf(checks), List.copyOf(unknown));
     }
 
-    private int getDomainAgeMonths(String urlString) {
-       
-        return -1;
-    }
-
-    private boolean hasContactPageWithRetry(String urlString, int retries) {
-        String[] contactPaths = {
-                "/contact", "/contacts", "/contact-us", "/contactus",
-                "/about/contact", "/info/contact", "/feedback"
-        };
-
-        for (int attempt = 0; attempt < retries; attempt++) {
-            for (String path : contactPaths) {
-                if (checkUrlExists(urlString + path)) {
-                    return true;
-                }
-            }
-   
-            if (attempt < retries - 1) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    // Проверки, не уложившиеся в срок, не попадают в results: calculateTrustScore
+    // подставит для них значения по умолчанию, а имена уйдут в "unknown".
+    private static void awaitStages(Map<String, CompletableFuture<Object>> stages, long deadline,
+                                    Map<String, Object> results, List<String> unknown) {
+        for (Map.Entry<String, CompletableFuture<Object>> stage : stages.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.put(stage.getKey(), stage.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                stage.getValue().cancel(true);
+                unknown.add(stage.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stage.getValue().cancel(true);
+                unknown.add(stage.getKey());
             }
         }
-        return false;
     }
 
-    private boolean hasPrivacyPolicyWithRetry(String urlString, int retries) {
-        String[] privacyPaths = {
-                "/privacy", "/privacy-policy", "/privacypolicy",
-                "/privacy_policy", "/policy", "/legal/privacy"
-        };
-
-        for (int attempt = 0; attempt < retries; attempt++) {
-            for (String path : privacyPaths) {
-                if (checkUrlExists(urlString + path)) {
-                    return true;
-                }
+    private <T> CompletableFuture<T> runStage(String name, ExecutorService executor, Supplier<T> check, long timeoutMs) {
+        long started = System.nanoTime();
+        CompletableFuture<T> stage = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                stage.complete(check.get());
+            } catch (Throwable e) {
+                stage.completeExceptionally(e);
             }
-        
-            if (attempt < retries - 1) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        });
+        stage.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        stage.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
             }
-        }
-        return false;
+            // Этап, снятый по общему дедлайну проверки, тоже считается таймаутом.
+            String outcome = error == null ? "ok"
+                    : error instanceof TimeoutException || error instanceof CancellationException ? "timeout" : "error";
+            metrics.recordStage(name, System.nanoTime() - started, outcome);
+        });
+        return stage;
+    }
+
+    private static boolean flag(Map<String, Object> checks, String name, boolean fallback) {
+        return checks.get(name) instanceof Boolean value ? value : fallback;
     }
 
-    private boolean checkUrlExists(String urlString) {
+    private boolean checkHttps(String urlString) {
         try {
             URL url = new URL(urlString);
-            HttpURLConnection con = (HttpURLConnection) url.openConnection();
-            con.setConnectTimeout(3000);
-            con.setReadTimeout(3000);
-            con.setRequestMethod("HEAD");
-            con.setInstanceFollowRedirects(true);
-            con.setRequestProperty("User-Agent", "Mozilla/5.0");
-
-            int code = con.getResponseCode();
-            return code >= 200 && code < 400;
+            return "https".equals(url.getProtocol());
         } catch (Exception e) {
             return false;
         }
     }
 
+    private CertificateInspector.CertificateFacts inspectCertificate(String origin) {
+        try {
+            URL url = new URL(origin);
+            return certificates.inspect(url.getHost(), url.getPort() < 0 ? 443 : url.getPort());
+        } catch (MalformedURLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     private boolean validateDomain(String urlString) {
         try {
             URL url = new URL(urlString);
@@ -240,58 +435,21 @@ public class CheckerController {
     }
 
     private boolean checkSafeBrowsing(String urlToCheck) {
-      
-        if (safeBrowsingApiKey == null || safeBrowsingApiKey.isEmpty() ||
-                safeBrowsingApiKey.startsWith("${")) {
-            return true;
-        }
-
         try {
-            URL url = new URL("https://safebrowsing.googleapis.com/v4/threatMatches:find?key=" + safeBrowsingApiKey);
-            HttpURLConnection con = (HttpURLConnection) url.openConnection();
-            con.setRequestMethod("POST");
-            con.setRequestProperty("Content-Type", "application/json");
-            con.setDoOutput(true);
-            con.setConnectTimeout(5000);
-            con.setReadTimeout(5000);
-
-            JSONObject requestJson = new JSONObject();
-            requestJson.put("client", new JSONObject()
-                    .put("clientId", "SiteChecker")
-                    .put("clientVersion", "1.0.0"));
-
-            requestJson.put("threatInfo", new JSONObject()
-                    .put("threatTypes", new JSONArray()
-                            .put("MALWARE")
-                            .put("SOCIAL_ENGINEERING")
-                            .put("UNWANTED_SOFTWARE"))
-                    .put("platformTypes", new JSONArray().put("ANY_PLATFORM"))
-                    .put("threatEntryTypes", new JSONArray().put("URL"))
-                    .put("threatEntries", new JSONArray()
-                            .put(new JSONObject().put("url", urlToCheck))));
-
-            try (OutputStream os = con.getOutputStream()) {
-                os.write(requestJson.toString().getBytes());
-            }
-
-            BufferedReader br = new BufferedReader(
-                    new InputStreamReader(con.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                response.append(line);
-            }
-
-            JSONObject jsonResponse = new JSONObject(response.toString());
-            return !jsonResponse.has("matches");
-
-        } catch (Exception e) {
-      
-            return true;
+            return safeBrowsing.isSafe(urlToCheck).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
         }
     }
 
-    private double calculateTrustScore(Map<String, Object> checks) {
+    static double calculateTrustScore(Map<String, Object> checks) {
+        if (Boolean.FALSE.equals(checks.get("resolvable"))) {
+            return 0;
+        }
+
         double score = 0;
 
         if ((Boolean) checks.getOrDefault("https", false)) score += 20;
@@ -309,15 +467,7 @@ public class CheckerController {
         return Math.min(100, Math.max(0, score));
     }
 
-    private String determineTrustLevel(double score) {
-        if (score >= 85) return "ОЧЕНЬ ВЫСОКИЙ";
-        if (score >= 70) return "ВЫСОКИЙ";
-        if (score >= 50) return "СРЕДНИЙ";
-        if (score >= 30) return "НИЗКИЙ";
-        return "ОПАСНЫЙ";
-    }
-
-    private boolean isValidUrl(String url) {
+    static boolean isValidUrl(String url) {
         try {
             new URL(url);
             return URL_PATTERN.matcher(url).matches();
@@ -326,7 +476,20 @@ public class CheckerController {
         }
     }
 
-    private String normalizeUrl(String url) {
+    /**
+     * Хост ссылки в нижнем регистре или null. Разбор через URL: URI.create
+     * не принимает часть ссылок, которые пропускает isValidUrl.
+     */
+    static String hostOf(String url) {
+        try {
+            String host = new URL(url).getHost();
+            return host == null || host.isEmpty() ? null : host.toLowerCase(Locale.ROOT);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    static String normalizeUrl(String url) {
         url = url.trim();
         if (!url.startsWith("http://") && !url.startsWith("https://")) {
             url = "https://" + url;
@@ -0,0 +1,187 @@
+package com.example;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Запись кеша результатов в сжатом виде. Флаги проверок упакованы в биты,
+ * оценка и возраст хранятся примитивами, время — в секундах эпохи, уровень —
+ * номером TrustLevel. Ссылка не хранится: она же ключ кеша. В details отдельно
+ * остаются только нестандартные значения (сертификат, список unknown, ошибка DNS),
+ * обычно общие для всех страниц сайта. SiteResult собирается заново при выдаче.
+ */
+final class CompactResult {
+
+    // Биты полей SiteResult.
+    private static final int HTTPS = 1;
+    private static final int HAS_CONTACT = 1 << 1;
+    private static final int SAFE_BROWSING = 1 << 2;
+    private static final int VALID_SSL = 1 << 3;
+    private static final int VALID_DOMAIN = 1 << 4;
+    private static final int HAS_PRIVACY_POLICY = 1 << 5;
+    // details содержит ageMonths, равный полю ageMonths.
+    private static final int AGE_IN_DETAILS = 1 << 6;
+    // Часть проверок не уложилась в срок (details.unknown не пуст).
+    private static final int PARTIAL = 1 << 7;
+
+    // Булевы значения из details: на каждый ключ бит «есть» и бит значения.
+    private static final String[] DETAIL_FLAGS = {
+            "https", "validDomain", "validSSL", "safeBrowsing", "hasContact", "hasPrivacyPolicy", "resolvable"
+    };
+    private static final int DETAIL_SHIFT = 8;
+
+    private static final Object[] NO_EXTRAS = new Object[0];
+    private static final AtomicIntegerFieldUpdater<CompactResult> HITS =
+            AtomicIntegerFieldUpdater.newUpdater(CompactResult.class, "hits");
+    private static final AtomicLongFieldUpdater<CompactResult> REFRESH_CLAIMED =
+            AtomicLongFieldUpdater.newUpdater(CompactResult.class, "refreshClaimedAt");
+
+    private final long checkedAt;
+    private final double score;
+    private final int ageMonths;
+    private final int flags;
+    private final byte level;
+    // Остальные пары ключ–значение details подряд: ключ, значение, ключ, значение...
+    private final Object[] extras;
+    // Число выдач из кеша — по нему решается, обновлять ли запись заранее.
+    private volatile int hits;
+    // Когда (секунды эпохи) для записи последний раз запрошено фоновое обновление.
+    private volatile long refreshClaimedAt;
+
+    private CompactResult(long checkedAt, double score, int ageMonths, int flags, byte level, Object[] extras) {
+        this.checkedAt = checkedAt;
+        this.score = score;
+        this.ageMonths = ageMonths;
+        this.flags = flags;
+        this.level = level;
+        this.extras = extras;
+    }
+
+    static CompactResult of(CheckerController.SiteResult result) {
+        int flags = (result.https() ? HTTPS : 0)
+                | (result.hasContact() ? HAS_CONTACT : 0)
+                | (result.safeBrowsing() ? SAFE_BROWSING : 0)
+                | (result.validSSL() ? VALID_SSL : 0)
+                | (result.validDomain() ? VALID_DOMAIN : 0)
+                | (result.hasPrivacyPolicy() ? HAS_PRIVACY_POLICY : 0);
+
+        Map<String, Object> details = result.details() == null ? Map.of() : result.details();
+        int remaining = details.size();
+        for (int i = 0; i < DETAIL_FLAGS.length; i++) {
+            if (details.get(DETAIL_FLAGS[i]) instanceof Boolean value) {
+                flags |= (value ? 3 : 1) << (DETAIL_SHIFT + 2 * i);
+                remaining--;
+            }
+        }
+        if (details.get("ageMonths") instanceof Integer age && age == result.ageMonths()) {
+            flags |= AGE_IN_DETAILS;
+            remaining--;
+        }
+        if (details.get("unknown") instanceof Collection<?> unknown && !unknown.isEmpty()) {
+            flags |= PARTIAL;
+        }
+
+        Object[] extras = NO_EXTRAS;
+        if (remaining > 0) {
+            extras = new Object[remaining * 2];
+            int next = 0;
+            for (Map.Entry<String, Object> entry : details.entrySet()) {
+                if (!isPacked(entry.getKey(), entry.getValue(), flags)) {
+                    extras[next++] = entry.getKey();
+                    extras[next++] = entry.getValue();
+                }
+            }
+        }
+
+        TrustLevel trustLevel = TrustLevel.fromLabel(result.level(), result.score());
+        return new CompactResult(result.timestamp().getEpochSecond(), result.score(), result.ageMonths(),
+                flags, (byte) trustLevel.ordinal(), extras);
+    }
+
+    CheckerController.SiteResult toSiteResult(String link) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (int i = 0; i < DETAIL_FLAGS.length; i++) {
+            int bits = flags >>> (DETAIL_SHIFT + 2 * i);
+            if ((bits & 1) != 0) {
+                details.put(DETAIL_FLAGS[i], (bits & 2) != 0);
+            }
+        }
+        if ((flags & AGE_IN_DETAILS) != 0) {
+            details.put("ageMonths", ageMonths);
+        }
+        for (int i = 0; i < extras.length; i += 2) {
+            details.put((String) extras[i], extras[i + 1]);
+        }
+
+        return new CheckerController.SiteResult(
+                link,
+                (flags & HTTPS) != 0,
+                ageMonths,
+                (flags & HAS_CONTACT) != 0,
+                (flags & SAFE_BROWSING) != 0,
+                (flags & VALID_SSL) != 0,
+                (flags & VALID_DOMAIN) != 0,
+                (flags & HAS_PRIVACY_POLICY) != 0,
+                score,
+                TrustLevel.byOrdinal(level).label(),
+                Instant.ofEpochSecond(checkedAt),
+                details
+        );
+    }
+
+    double score() {
+        return score;
+    }
+
+    long checkedAtEpochSecond() {
+        return checkedAt;
+    }
+
+    boolean partial() {
+        return (flags & PARTIAL) != 0;
+    }
+
+    int recordHit() {
+        return HITS.incrementAndGet(this);
+    }
+
+    /**
+     * Право запросить фоновое обновление записи: true только для одного вызывающего,
+     * пока не пройдёт retrySeconds — на случай, если обновление не состоялось.
+     */
+    boolean claimRefresh(long nowEpochSecond, long retrySeconds) {
+        long claimed = refreshClaimedAt;
+        return nowEpochSecond - claimed >= retrySeconds && REFRESH_CLAIMED.compareAndSet(this, claimed, nowEpochSecond);
+    }
+
+    /**
+     * Обновлённая запись наследует половину обращений прежней, чтобы популярность
+     * не обнулялась после каждого обновления, но и не копилась бесконечно.
+     */
+    void inheritHits(CompactResult previous) {
+        HITS.addAndGet(this, previous.hits / 2);
+    }
+
+    int extraCount() {
+        return extras.length / 2;
+    }
+
+    private static boolean isPacked(String key, Object value, int flags) {
+        if ("ageMonths".equals(key)) {
+            return (flags & AGE_IN_DETAILS) != 0;
+        }
+        if (!(value instanceof Boolean)) {
+            return false;
+        }
+        for (String flag : DETAIL_FLAGS) {
+            if (flag.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Потоковое извлечение ссылок из загруженных документов: содержимое
+ * читается порциями прямо в {@link UrlExtractor}, без промежуточной строки
+ * со всем текстом файла.
+ */
+final class DocumentLinkReader {
+
+    private static final String DOCX_DOCUMENT = "word/document.xml";
+    private static final String DOCX_RELATIONSHIPS = "word/_rels/document.xml.rels";
+
+    private static final XMLInputFactory XML_FACTORY = createXmlFactory();
+
+    private DocumentLinkReader() {
+    }
+
+    static Set<String> readUpload(String originalFileName, InputStream input) throws IOException {
+        String fileName = originalFileName == null ? "" : originalFileName.toLowerCase();
+
+        if (fileName.endsWith(".txt") || fileName.endsWith(".html") || fileName.endsWith(".htm")) {
+            return readText(input);
+        } else if (fileName.endsWith(".docx")) {
+            return readDocx(input);
+        } else if (fileName.endsWith(".pdf")) {
+            return readPdf(input);
+        } else if (fileName.endsWith(".doc")) {
+            throw new IllegalArgumentException("Формат .doc не поддерживается. Используйте .docx или .txt");
+        } else {
+            throw new IllegalArgumentException("Неподдерживаемый формат файла");
+        }
+    }
+
+    static Set<String> readText(InputStream input) throws IOException {
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return UrlExtractor.extract(reader);
+        }
+    }
+
+    static Set<String> readPdf(InputStream input) throws IOException {
+        // Без разбора PDF: ищем ссылки в несжатых участках файла.
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.ISO_8859_1)) {
+            return UrlExtractor.extract(reader);
+        }
+    }
+
+    static Set<String> readDocx(InputStream input) throws IOException {
+        UrlExtractor extractor = new UrlExtractor();
+
+        try (ZipInputStream zip = new ZipInputStream(input)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(DOCX_DOCUMENT)) {
+                    readDocumentXml(new EntryStream(zip), extractor);
+                } else if (entry.getName().equals(DOCX_RELATIONSHIPS)) {
+                    readRelationships(new EntryStream(zip), extractor);
+                }
+                zip.closeEntry();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Некорректный XML в документе: " + e.getMessage(), e);
+        }
+
+        return extractor.result();
+    }
+
+    static void readDocumentXml(InputStream xml, UrlExtractor extractor) throws XMLStreamException {
+        XMLStreamReader reader = XML_FACTORY.createXMLStreamReader(xml, "UTF-8");
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA ->
+                            extractor.accept(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        String name = reader.getLocalName();
+                        if (name.equals("tab") || name.equals("br")) {
+                            extractor.accept(' ');
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        String name = reader.getLocalName();
+                        if (name.equals("p") || name.equals("hyperlink") || name.equals("instrText")) {
+                            extractor.accept(' ');
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readRelationships(InputStream xml, UrlExtractor extractor) throws XMLStreamException {
+        XMLStreamReader reader = XML_FACTORY.createXMLStreamReader(xml, "UTF-8");
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && reader.getLocalName().equals("Relationship")
+                        && "External".equals(reader.getAttributeValue(null, "TargetMode"))) {
+                    String target = reader.getAttributeValue(null, "Target");
+                    if (target != null) {
+                        extractor.accept(target);
+                        extractor.accept(' ');
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static XMLInputFactory createXmlFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    // XML-парсер закрывает свой поток, а закрыть нужно только текущую запись архива.
+    private static final class EntryStream extends FilterInputStream {
+
+        EntryStream(ZipInputStream zip) {
+            super(zip);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
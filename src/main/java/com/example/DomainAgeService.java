@@ -0,0 +1,143 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Возраст домена по дате регистрации из RDAP. Кеш ведётся по регистрируемому
+ * домену, поэтому все поддомены одного сайта разделяют один запрос; дата
+ * регистрации почти не меняется, так что записи живут долго. Сетевая ошибка
+ * не роняет загрузку в кеше (Caffeine пишет каждую такую в лог со стеком),
+ * а сохраняется как неудача на короткий error-ttl.
+ */
+@Component
+public class DomainAgeService {
+
+    static final int UNKNOWN = -1;
+    // Запрос не удался; наружу отдаётся как UNKNOWN.
+    private static final int FAILED = -2;
+
+    private final HttpProbeClient http;
+    private final ExecutorService networkExecutor;
+    private final PublicSuffixList suffixes = PublicSuffixList.bundled();
+    private final AsyncCache<String, Integer> cache;
+    private final String baseUrl;
+    private final boolean enabled;
+
+    public DomainAgeService(HttpProbeClient http,
+                            @Qualifier("networkExecutor") ExecutorService networkExecutor,
+                            CheckMetrics metrics,
+                            @Value("${app.rdap.enabled:true}") boolean enabled,
+                            @Value("${app.rdap.base-url:https://rdap.org}") String baseUrl,
+                            @Value("${app.rdap.ttl:P30D}") Duration ttl,
+                            @Value("${app.rdap.negative-ttl:PT6H}") Duration negativeTtl,
+                            @Value("${app.rdap.error-ttl:PT1M}") Duration errorTtl,
+                            @Value("${app.rdap.max-entries:100000}") long maxEntries) {
+        this.http = http;
+        this.networkExecutor = networkExecutor;
+        this.enabled = enabled;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Integer>() {
+                    @Override
+                    public long expireAfterCreate(String domain, Integer months, long currentTime) {
+                        Duration expiry = switch (months) {
+                            case FAILED -> errorTtl;
+                            case UNKNOWN -> negativeTtl;
+                            default -> ttl;
+                        };
+                        return expiry.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String domain, Integer months, long currentTime, long currentDuration) {
+                        return expireAfterCreate(domain, months, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String domain, Integer months, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        metrics.monitorCache("domain-age", cache.synchronous());
+    }
+
+    /**
+     * Возраст в месяцах или -1, если он неизвестен. Запрос к RDAP выполняется
+     * в фоне в сетевом пуле; одновременные запросы одного домена объединяются
+     * кешем. После сетевой ошибки или отказа переполненного пула запрос
+     * повторяется не раньше чем через error-ttl.
+     */
+    public CompletableFuture<Integer> ageMonths(String host) {
+        String domain = enabled ? suffixes.registrableDomain(host) : null;
+        if (domain == null) {
+            return CompletableFuture.completedFuture(UNKNOWN);
+        }
+        return cache.get(domain, (key, executor) -> {
+                    try {
+                        return CompletableFuture.supplyAsync(() -> lookup(key), networkExecutor);
+                    } catch (RejectedExecutionException e) {
+                        return CompletableFuture.completedFuture(FAILED);
+                    }
+                })
+                .thenApply(months -> months == FAILED ? UNKNOWN : months);
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private int lookup(String domain) {
+        try {
+            Optional<String> body = http.getJson(CheckMetrics.TARGET_RDAP,
+                    baseUrl + "/domain/" + domain, "application/rdap+json");
+            return body.map(DomainAgeService::registrationAgeMonths).orElse(UNKNOWN);
+        } catch (IOException | RuntimeException e) {
+            return FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FAILED;
+        }
+    }
+
+    static int registrationAgeMonths(String rdapJson) {
+        try {
+            JSONArray events = new JSONObject(rdapJson).optJSONArray("events");
+            if (events == null) {
+                return UNKNOWN;
+            }
+            for (int i = 0; i < events.length(); i++) {
+                JSONObject event = events.optJSONObject(i);
+                if (event != null && "registration".equalsIgnoreCase(event.optString("eventAction"))) {
+                    OffsetDateTime registered = OffsetDateTime.parse(event.getString("eventDate"));
+                    long months = ChronoUnit.MONTHS.between(registered, OffsetDateTime.now(ZoneOffset.UTC));
+                    return (int) Math.max(0, months);
+                }
+            }
+            return UNKNOWN;
+        } catch (JSONException | DateTimeParseException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Списки заведомо надёжных и заведомо опасных доменов (app.filters.allow-path,
+ * app.filters.deny-path). Ссылка на домен из списка получает вердикт сразу,
+ * без сетевых проверок; запрещающий список важнее разрешающего. Файлы
+ * перечитываются при изменении, новые наборы подменяют старые целиком,
+ * так что проверки никогда не видят наполовину загруженный список.
+ */
+@Component
+public class DomainFilters {
+
+    private static final Logger log = LoggerFactory.getLogger(DomainFilters.class);
+
+    private final ListFile allow;
+    private final ListFile deny;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(
+            new Snapshot(DomainSet.EMPTY, DomainSet.EMPTY));
+
+    public DomainFilters(@Value("${app.filters.allow-path:}") String allowPath,
+                         @Value("${app.filters.deny-path:}") String denyPath) {
+        this.allow = new ListFile(allowPath);
+        this.deny = new ListFile(denyPath);
+        reloadIfChanged();
+    }
+
+    /**
+     * Вердикт по хосту или null, если хоста нет ни в одном списке.
+     */
+    public Verdict verdict(String host) {
+        Snapshot snapshot = current.get();
+        String denied = snapshot.deny().match(host);
+        if (denied != null) {
+            return new Verdict(false, denied);
+        }
+        String allowed = snapshot.allow().match(host);
+        return allowed != null ? new Verdict(true, allowed) : null;
+    }
+
+    public int allowSize() {
+        return current.get().allow().size();
+    }
+
+    public int denySize() {
+        return current.get().deny().size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.filters.reload-interval:PT1M}",
+            initialDelayString = "${app.filters.reload-interval:PT1M}")
+    public synchronized void reloadIfChanged() {
+        DomainSet allowSet = allow.reloadIfChanged();
+        DomainSet denySet = deny.reloadIfChanged();
+        if (allowSet == null && denySet == null) {
+            return;
+        }
+        Snapshot previous = current.get();
+        current.set(new Snapshot(
+                allowSet != null ? allowSet : previous.allow(),
+                denySet != null ? denySet : previous.deny()));
+    }
+
+    public record Verdict(boolean allowed, String domain) {
+
+        public String list() {
+            return allowed ? "allow" : "deny";
+        }
+    }
+
+    private record Snapshot(DomainSet allow, DomainSet deny) {}
+
+    private static final class ListFile {
+
+        private final Path path;
+        private FileTime loadedModified;
+        private long loadedSize = -1;
+
+        ListFile(String path) {
+            this.path = path == null || path.isBlank() ? null : Path.of(path);
+        }
+
+        // Новый набор, если файл изменился с прошлой загрузки, иначе null.
+        DomainSet reloadIfChanged() {
+            if (path == null) {
+                return null;
+            }
+            try {
+                if (!Files.exists(path)) {
+                    if (loadedSize < 0) {
+                        return null;
+                    }
+                    log.warn("Список доменов {} удалён, фильтр очищен", path);
+                    loadedModified = null;
+                    loadedSize = -1;
+                    return DomainSet.EMPTY;
+                }
+                FileTime modified = Files.getLastModifiedTime(path);
+                long size = Files.size(path);
+                if (modified.equals(loadedModified) && size == loadedSize) {
+                    return null;
+                }
+                DomainSet set;
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    set = DomainSet.read(reader);
+                }
+                loadedModified = modified;
+                loadedSize = size;
+                log.info("Список доменов {} загружен: {} доменов", path, set.size());
+                return set;
+            } catch (IOException e) {
+                log.warn("Не удалось загрузить список доменов {}: {}", path, e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.IDN;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Неизменяемый набор доменов из списка разрешённых или запрещённых.
+ * Домены хранятся 64-битными хешами в отсортированном long[]; перед бинарным
+ * поиском проверяется фильтр Блума (около 10 бит на домен, ~1% ложных
+ * срабатываний), так что подавляющее большинство промахов стоит нескольких
+ * обращений к памяти. Совпадение ищется по самому хосту и всем его
+ * родительским доменам, кроме доменов верхнего уровня.
+ */
+final class DomainSet {
+
+    static final DomainSet EMPTY = new DomainSet(new long[0], new long[1], 63);
+
+    private static final int BITS_PER_DOMAIN = 10;
+    private static final int HASHES = 7;
+
+    private final long[] hashes;
+    private final long[] bloom;
+    private final long bloomMask;
+
+    private DomainSet(long[] hashes, long[] bloom, long bloomMask) {
+        this.hashes = hashes;
+        this.bloom = bloom;
+        this.bloomMask = bloomMask;
+    }
+
+    /**
+     * Формат: один домен на строку, пустые строки и комментарии после # пропускаются,
+     * префиксы «*.» и «.» допускаются и означают то же, что сам домен.
+     */
+    static DomainSet read(Reader source) throws IOException {
+        long[] collected = new long[1024];
+        int count = 0;
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String domain = normalize(line);
+            if (domain == null) {
+                continue;
+            }
+            if (count == collected.length) {
+                collected = Arrays.copyOf(collected, count * 2);
+            }
+            collected[count++] = hash(domain, 0);
+        }
+        return of(Arrays.copyOf(collected, count));
+    }
+
+    private static DomainSet of(long[] collected) {
+        Arrays.sort(collected);
+        int distinct = 0;
+        for (int i = 0; i < collected.length; i++) {
+            if (i == 0 || collected[i] != collected[i - 1]) {
+                collected[distinct++] = collected[i];
+            }
+        }
+        long[] hashes = Arrays.copyOf(collected, distinct);
+
+        long wanted = Math.max(64L, (long) distinct * BITS_PER_DOMAIN);
+        long bits = Long.highestOneBit(wanted - 1) << 1;
+        long[] bloom = new long[(int) (bits >>> 6)];
+        long mask = bits - 1;
+        for (long hash : hashes) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = (h1 + (long) i * h2) & mask;
+                bloom[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+        return new DomainSet(hashes, bloom, mask);
+    }
+
+    int size() {
+        return hashes.length;
+    }
+
+    /**
+     * Домен из набора, которому принадлежит host (сам host или родительский), либо null.
+     */
+    String match(String host) {
+        String domain = normalize(host);
+        if (domain == null || hashes.length == 0) {
+            return null;
+        }
+        int from = 0;
+        while (domain.indexOf('.', from) > 0) {
+            if (contains(hash(domain, from))) {
+                return domain.substring(from);
+            }
+            from = domain.indexOf('.', from) + 1;
+        }
+        return null;
+    }
+
+    private boolean contains(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + (long) i * h2) & bloomMask;
+            if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return Arrays.binarySearch(hashes, hash) >= 0;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        int comment = value.indexOf('#');
+        String domain = (comment >= 0 ? value.substring(0, comment) : value).trim().toLowerCase(Locale.ROOT);
+        if (domain.startsWith("*.")) {
+            domain = domain.substring(2);
+        } else if (domain.startsWith(".")) {
+            domain = domain.substring(1);
+        }
+        if (domain.endsWith(".")) {
+            domain = domain.substring(0, domain.length() - 1);
+        }
+        if (domain.isEmpty()) {
+            return null;
+        }
+        try {
+            return IDN.toASCII(domain, IDN.ALLOW_UNASSIGNED);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // FNV-1a по символам суффикса с перемешиванием из MurmurHash3.
+    private static long hash(String domain, int from) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < domain.length(); i++) {
+            hash ^= domain.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
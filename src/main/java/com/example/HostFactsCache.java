@@ -0,0 +1,101 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Кеш фактов уровня сайта (схема + хост + порт): SSL, домен, наличие
+ * страниц контактов и политики конфиденциальности. Эти факты общие для
+ * всех ссылок одного сайта, поэтому проверяются один раз на origin.
+ */
+@Component
+public class HostFactsCache {
+
+    private final Cache<String, HostFacts> cache;
+    private final SingleFlight<String, HostFacts> inFlight = new SingleFlight<>();
+
+    public HostFactsCache(CheckMetrics metrics,
+                          @Value("${app.cache.host-ttl:PT6H}") Duration ttl,
+                          @Value("${app.cache.host-partial-ttl:PT5M}") Duration partialTtl,
+                          @Value("${app.cache.host-max-entries:50000}") long maxEntries) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, HostFacts>() {
+                    @Override
+                    public long expireAfterCreate(String origin, HostFacts facts, long currentTime) {
+                        return (facts.unknown().isEmpty() ? ttl : partialTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String origin, HostFacts facts, long currentTime, long currentDuration) {
+                        return expireAfterCreate(origin, facts, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String origin, HostFacts facts, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        metrics.monitorCache("host-facts", cache);
+    }
+
+    public HostFacts get(String origin, Supplier<HostFacts> loader) {
+        HostFacts cached = cache.getIfPresent(origin);
+        if (cached != null) {
+            return cached;
+        }
+
+        return inFlight.execute(origin, () -> {
+            HostFacts raced = cache.asMap().get(origin);
+            if (raced != null) {
+                return raced;
+            }
+            HostFacts loaded = loader.get();
+            cache.put(origin, loaded);
+            return loaded;
+        });
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public double hitRate() {
+        return cache.stats().hitRate();
+    }
+
+    /**
+     * Origin ссылки или null, если в ней нет хоста. Разбор через URL, а не URI:
+     * isValidUrl пропускает ссылки, которые URI не принимает ("|" в пути)
+     * или разбирает без хоста ("_" в имени).
+     */
+    static String originOf(String url) {
+        URL parsed;
+        try {
+            parsed = new URL(url);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+        String host = parsed.getHost();
+        if (host == null || host.isEmpty()) {
+            return null;
+        }
+        String origin = parsed.getProtocol().toLowerCase(Locale.ROOT) + "://" + host.toLowerCase(Locale.ROOT);
+        return parsed.getPort() >= 0 ? origin + ":" + parsed.getPort() : origin;
+    }
+
+    public record HostFacts(Map<String, Object> checks, List<String> unknown) {}
+}
@@ -0,0 +1,245 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Состояние внешних хостов: задержки последних запросов, по которым
+ * подбирается таймаут, и автомат размыкания (circuit breaker). После
+ * failure-threshold сетевых ошибок подряд без единого успешного ответа за
+ * cool-down хост пропускается на cool-down, затем пробуется одним запросом.
+ */
+@Component
+public class HostHealth {
+
+    private static final int WINDOW = 64;
+    private static final int MIN_SAMPLES = 8;
+
+    private final Cache<String, HostStats> hosts;
+    private final Duration defaultTimeout;
+    private final Duration minTimeout;
+    private final double timeoutMultiplier;
+    private final int failureThreshold;
+    private final Duration coolDown;
+    private final Duration defaultHedgeDelay;
+
+    public HostHealth(CheckMetrics metrics,
+                      @Value("${app.timeout.read:5000}") long readTimeoutMs,
+                      @Value("${app.timeout.min:500}") long minTimeoutMs,
+                      @Value("${app.timeout.multiplier:3.0}") double timeoutMultiplier,
+                      @Value("${app.circuit.failure-threshold:5}") int failureThreshold,
+                      @Value("${app.circuit.cool-down:PT30S}") Duration coolDown,
+                      @Value("${app.http.hedging.delay:PT0.5S}") Duration defaultHedgeDelay,
+                      @Value("${app.http.hosts.expire-after:PT30M}") Duration expireAfter,
+                      @Value("${app.http.hosts.max-entries:100000}") long maxHosts) {
+        this.defaultTimeout = Duration.ofMillis(readTimeoutMs);
+        this.minTimeout = Duration.ofMillis(Math.min(minTimeoutMs, readTimeoutMs));
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.failureThreshold = failureThreshold;
+        this.coolDown = coolDown;
+        this.defaultHedgeDelay = defaultHedgeDelay;
+        this.hosts = Caffeine.newBuilder()
+                .expireAfterAccess(expireAfter)
+                .maximumSize(maxHosts)
+                .build();
+        for (String target : CheckMetrics.TARGETS) {
+            metrics.targetGauge("linkchecker.circuit.open", "Хосты цели с разомкнутым автоматом",
+                    target, null, this, health -> health.openCircuits(target));
+            metrics.targetGauge("linkchecker.host.timeout", "Средний текущий таймаут запроса к хостам цели",
+                    target, "seconds", this, health -> health.meanTimeoutSeconds(target));
+        }
+    }
+
+    /**
+     * Таймаут запроса к хосту: p99 наблюдаемых задержек с запасом, но не
+     * меньше app.timeout.min и не больше app.timeout.read. Пока данных мало,
+     * используется app.timeout.read.
+     */
+    public Duration timeoutFor(String endpoint) {
+        return timeoutFor(stats(endpoint));
+    }
+
+    private Duration timeoutFor(HostStats stats) {
+        long p99 = stats.percentileNanos(0.99);
+        if (p99 < 0) {
+            return defaultTimeout;
+        }
+        long adaptive = (long) (p99 * timeoutMultiplier);
+        return Duration.ofNanos(Math.max(minTimeout.toNanos(), Math.min(defaultTimeout.toNanos(), adaptive)));
+    }
+
+    // Повторный запрос отправляется, если первый не ответил за обычные для хоста p95.
+    public Duration hedgeDelayFor(String endpoint) {
+        long p95 = stats(endpoint).percentileNanos(0.95);
+        return p95 < 0 ? defaultHedgeDelay : Duration.ofNanos(p95);
+    }
+
+    public boolean allowRequest(String endpoint) {
+        return stats(endpoint).allowRequest(System.nanoTime(), coolDown.toNanos());
+    }
+
+    /**
+     * target — тип цели для метрик (CheckMetrics.TARGET_*). Сайт и его TLS-проверка
+     * делят один endpoint, поэтому он учитывается в цели последнего запроса.
+     */
+    public void recordSuccess(String target, String endpoint, long elapsedNanos) {
+        HostStats stats = stats(endpoint);
+        stats.target = target;
+        stats.recordSuccess(System.nanoTime(), elapsedNanos);
+    }
+
+    public void recordFailure(String target, String endpoint) {
+        HostStats stats = stats(endpoint);
+        stats.target = target;
+        stats.recordFailure(System.nanoTime(), failureThreshold, coolDown.toNanos());
+    }
+
+    public long trackedHosts() {
+        return hosts.estimatedSize();
+    }
+
+    public long openCircuits() {
+        long now = System.nanoTime();
+        return hosts.asMap().values().stream().filter(stats -> stats.isOpen(now)).count();
+    }
+
+    long openCircuits(String target) {
+        long now = System.nanoTime();
+        return hosts.asMap().values().stream()
+                .filter(stats -> target.equals(stats.target) && stats.isOpen(now))
+                .count();
+    }
+
+    // Для служебных целей (Safe Browsing, RDAP) endpoint один, и это его текущий таймаут.
+    double meanTimeoutSeconds(String target) {
+        return hosts.asMap().values().stream()
+                .filter(stats -> target.equals(stats.target))
+                .mapToDouble(stats -> timeoutFor(stats).toNanos() / 1e9)
+                .average()
+                .orElse(defaultTimeout.toNanos() / 1e9);
+    }
+
+    /**
+     * Самые медленные хосты с их задержками и состоянием автомата.
+     */
+    public List<Map<String, Object>> slowest(int limit) {
+        long now = System.nanoTime();
+        return hosts.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, HostStats> e) -> e.getValue().percentileNanos(0.99)).reversed())
+                .limit(limit)
+                .map(e -> e.getValue().toMap(e.getKey(), now))
+                .toList();
+    }
+
+    private HostStats stats(String endpoint) {
+        return hosts.get(endpoint, key -> new HostStats());
+    }
+
+    /**
+     * Ключ статистики — хост с портом: разные сервисы на одном хосте
+     * не должны размыкать автомат друг другу.
+     */
+    static String endpoint(String host, int port) {
+        return (host == null ? "" : host.toLowerCase(Locale.ROOT)) + ":" + port;
+    }
+
+    static String endpoint(URI uri) {
+        int port = uri.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return endpoint(uri.getHost(), port);
+    }
+
+    private static final class HostStats {
+
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private int next;
+        private int consecutiveFailures;
+        private long openUntil;
+        private long lastSuccess;
+        private boolean open;
+        private boolean trial;
+        private long failures;
+        private long successes;
+        private volatile String target;
+
+        synchronized long percentileNanos(double quantile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(quantile * count) - 1)];
+        }
+
+        synchronized boolean allowRequest(long now, long coolDownNanos) {
+            if (!open) {
+                return true;
+            }
+            // После паузы пропускаем один пробный запрос; если он не закончится,
+            // следующий пробный будет разрешён ещё через одну паузу.
+            if (now - openUntil >= 0) {
+                openUntil = now + coolDownNanos;
+                trial = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void recordSuccess(long now, long elapsedNanos) {
+            lastSuccess = now;
+            samples[next] = elapsedNanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+            consecutiveFailures = 0;
+            open = false;
+            trial = false;
+            successes++;
+        }
+
+        synchronized void recordFailure(long now, int threshold, long coolDownNanos) {
+            failures++;
+            consecutiveFailures++;
+            // Медленный, но живой хост (успешные ответы были недавно) не отключаем:
+            // параллельные запросы к нему могут упереться в таймаут пачкой.
+            boolean recentlyAlive = successes > 0 && now - lastSuccess < coolDownNanos;
+            if (trial || consecutiveFailures >= threshold && !recentlyAlive) {
+                open = true;
+                openUntil = now + coolDownNanos;
+                trial = false;
+            }
+        }
+
+        synchronized boolean isOpen(long now) {
+            return open && now - openUntil < 0;
+        }
+
+        synchronized Map<String, Object> toMap(String endpoint, long now) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("endpoint", endpoint);
+            map.put("successes", successes);
+            map.put("failures", failures);
+            map.put("circuitOpen", open && now - openUntil < 0);
+            if (count >= MIN_SAMPLES) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                map.put("p50Ms", sorted[count / 2] / 1_000_000);
+                map.put("p99Ms", sorted[Math.min(count - 1, (int) Math.ceil(0.99 * count) - 1)] / 1_000_000);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Разрешение имён хостов перед проверкой. Успешные и неудачные ответы
+ * кешируются с разными TTL, чтобы несуществующие домены из больших списков
+ * отсекались за миллисекунды, а не за время таймаутов всех проверок.
+ */
+@Component
+public class HostResolver {
+
+    private final Cache<String, Resolution> cache;
+    private final SingleFlight<String, Resolution> inFlight = new SingleFlight<>();
+    private final ExecutorService networkExecutor;
+    private final boolean blockPrivate;
+
+    public HostResolver(@Qualifier("networkExecutor") ExecutorService networkExecutor,
+                        CheckMetrics metrics,
+                        @Value("${app.dns.ttl:PT5M}") Duration ttl,
+                        @Value("${app.dns.negative-ttl:PT1M}") Duration negativeTtl,
+                        @Value("${app.dns.max-entries:100000}") long maxEntries,
+                        @Value("${app.dns.block-private:true}") boolean blockPrivate) {
+        this.networkExecutor = networkExecutor;
+        this.blockPrivate = blockPrivate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Resolution>() {
+                    @Override
+                    public long expireAfterCreate(String host, Resolution resolution, long currentTime) {
+                        return (resolution.resolvable() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String host, Resolution resolution, long currentTime, long currentDuration) {
+                        return expireAfterCreate(host, resolution, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String host, Resolution resolution, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        metrics.monitorCache("dns", cache);
+    }
+
+    public Resolution resolve(String host) {
+        String key = host.toLowerCase(Locale.ROOT);
+        Resolution cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return inFlight.execute(key, () -> {
+            Resolution raced = cache.asMap().get(key);
+            if (raced != null) {
+                return raced;
+            }
+            Resolution resolution = lookup(key);
+            cache.put(key, resolution);
+            return resolution;
+        });
+    }
+
+    public Resolution peek(String host) {
+        return cache.getIfPresent(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Параллельно разрешает хосты пакета, чтобы к моменту проверки ссылок
+     * ответы уже лежали в кеше. Запросы идут в сетевом пуле: этапы DNS в
+     * checkExecutor могут ждать те же разрешения. Если пул занят, хост
+     * просто разрешится позже на этапе проверки.
+     */
+    public void prefetch(Collection<String> hosts) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String host : hosts) {
+            String key = host.toLowerCase(Locale.ROOT);
+            if (cache.getIfPresent(key) == null) {
+                distinct.add(key);
+            }
+        }
+        try {
+            for (String host : distinct) {
+                networkExecutor.execute(() -> resolve(host));
+            }
+        } catch (RejectedExecutionException e) {
+            // остальные хосты разрешатся при проверке
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private Resolution lookup(String host) {
+        try {
+            List<InetAddress> addresses = List.of(InetAddress.getAllByName(host));
+            if (blockPrivate) {
+                for (InetAddress address : addresses) {
+                    if (isPrivate(address)) {
+                        return new Resolution(List.of(), "Адрес во внутренней сети: " + address.getHostAddress());
+                    }
+                }
+            }
+            return new Resolution(addresses, null);
+        } catch (UnknownHostException e) {
+            return new Resolution(List.of(), "Домен не найден");
+        } catch (SecurityException e) {
+            return new Resolution(List.of(), "Разрешение имени запрещено");
+        }
+    }
+
+    private static boolean isPrivate(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        // IPv6 unique local (fc00::/7) и CGNAT 100.64.0.0/10 Java сама не распознаёт
+        byte[] raw = address.getAddress();
+        if (raw.length == 16) {
+            return (raw[0] & 0xfe) == 0xfc;
+        }
+        return (raw[0] & 0xff) == 100 && (raw[1] & 0xc0) == 64;
+    }
+
+    public record Resolution(List<InetAddress> addresses, String error) {
+
+        public boolean resolvable() {
+            return error == null;
+        }
+    }
+}
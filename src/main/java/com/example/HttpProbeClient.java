@@ -0,0 +1,384 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Общий HTTP-клиент для всех исходящих запросов: соединения к одному хосту
+ * переиспользуются (keep-alive, HTTP/2 там, где сервер его поддерживает),
+ * а число одновременных запросов к хосту ограничено. Таймауты и пропуск
+ * недоступных хостов определяет HostHealth.
+ *
+ * Размер пула соединений и keep-alive JDK-клиент читает только из системных
+ * свойств jdk.httpclient.connectionPoolSize и jdk.httpclient.keepalive.timeout
+ * при первой загрузке HttpClient в JVM, поэтому они задаются аргументами JVM
+ * (см. JAVA_TOOL_OPTIONS в Dockerfile), а не настройками приложения.
+ */
+@Component
+public class HttpProbeClient {
+
+    private static final String USER_AGENT = "Mozilla/5.0";
+
+    private final HttpClient client;
+    private final HostHealth health;
+    private final CheckMetrics metrics;
+    private final Duration readTimeout;
+    private final int maxPerHost;
+    private final boolean hedging;
+    private final Cache<String, Semaphore> hostPermits = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public HttpProbeClient(HostHealth health,
+                           CheckMetrics metrics,
+                           @Value("${app.timeout.connection:3000}") long connectTimeoutMs,
+                           @Value("${app.timeout.read:5000}") long readTimeoutMs,
+                           @Value("${app.http.max-per-host:8}") int maxPerHost,
+                           @Value("${app.http.hedging.enabled:false}") boolean hedging) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.health = health;
+        this.metrics = metrics;
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.maxPerHost = maxPerHost;
+        this.hedging = hedging;
+    }
+
+    public ProbeResponse head(String url) {
+        try {
+            return headAsync(url).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ProbeResponse.FAILED;
+        } catch (ExecutionException e) {
+            return ProbeResponse.FAILED;
+        }
+    }
+
+    /**
+     * HEAD без ожидания ответа: разрешение на хост берётся сразу (вызывающий
+     * поток ждёт, если лимит исчерпан), а сам запрос идёт асинхронно.
+     * Отмена возвращённого future прерывает запрос.
+     *
+     * При app.http.hedging.enabled, если хост не ответил за свои обычные p95,
+     * отправляется второй такой же запрос и берётся первый успешный ответ.
+     */
+    public CompletableFuture<ProbeResponse> headAsync(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ProbeResponse.FAILED);
+        }
+
+        CompletableFuture<ProbeResponse> first = sendHead(uri, true);
+        if (!hedging || first.isDone()) {
+            return first;
+        }
+
+        CompletableFuture<ProbeResponse> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<CompletableFuture<ProbeResponse>> hedge = new AtomicReference<>();
+        BiConsumer<ProbeResponse, Throwable> onResponse = (response, error) -> {
+            if (response != null && response != ProbeResponse.FAILED) {
+                winner.complete(response);
+            } else if (pending.decrementAndGet() == 0) {
+                winner.complete(ProbeResponse.FAILED);
+            }
+        };
+        first.whenComplete(onResponse);
+
+        Duration delay = health.hedgeDelayFor(HostHealth.endpoint(uri));
+        CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (winner.isDone()) {
+                return;
+            }
+            pending.incrementAndGet();
+            CompletableFuture<ProbeResponse> second = sendHead(uri, false);
+            hedge.set(second);
+            second.whenComplete(onResponse);
+        });
+
+        winner.whenComplete((response, error) -> {
+            first.cancel(true);
+            CompletableFuture<ProbeResponse> second = hedge.get();
+            if (second != null) {
+                second.cancel(true);
+            }
+        });
+        return winner;
+    }
+
+    private CompletableFuture<ProbeResponse> sendHead(URI uri, boolean waitForPermit) {
+        // Запрос собирается до взятия разрешения: неподдерживаемая схема или ссылка
+        // без хоста не должны уносить с собой разрешение хоста.
+        HttpRequest request;
+        try {
+            request = newRequest(uri)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ProbeResponse.FAILED);
+        }
+
+        String endpoint = HostHealth.endpoint(uri);
+        Semaphore permits = permitsFor(uri);
+        try {
+            if (!health.allowRequest(endpoint)) {
+                return CompletableFuture.completedFuture(ProbeResponse.FAILED);
+            }
+            boolean acquired = waitForPermit
+                    ? permits.tryAcquire(readTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    : permits.tryAcquire();
+            if (!acquired) {
+                return CompletableFuture.completedFuture(ProbeResponse.FAILED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(ProbeResponse.FAILED);
+        }
+
+        Runnable release = releaseOnce(permits);
+
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<Void>> sent;
+        try {
+            sent = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        } catch (RuntimeException e) {
+            release.run();
+            return CompletableFuture.completedFuture(ProbeResponse.FAILED);
+        }
+        CompletableFuture<ProbeResponse> result = sent.handle((response, error) -> {
+            release.run();
+            if (error == null) {
+                health.recordSuccess(CheckMetrics.TARGET_SITE, endpoint, System.nanoTime() - started);
+                metrics.recordOutbound(CheckMetrics.TARGET_SITE, true);
+                return new ProbeResponse(response.statusCode(), response.sslSession().orElse(null));
+            }
+            if (!(unwrap(error) instanceof CancellationException)) {
+                health.recordFailure(CheckMetrics.TARGET_SITE, endpoint);
+                metrics.recordOutbound(CheckMetrics.TARGET_SITE, false);
+            }
+            return ProbeResponse.FAILED;
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                sent.cancel(true);
+                release.run();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * GET HTML-страницы с потоковым чтением тела: читается не больше maxBytes,
+     * остаток ответа отбрасывается вместе с соединением.
+     */
+    public <T> T getPage(String url, long maxBytes, PageReader<T> reader) throws IOException, InterruptedException {
+        URI uri = URI.create(url);
+        HttpRequest request = newRequest(uri)
+                .GET()
+                .header("Accept", "text/html,application/xhtml+xml")
+                .build();
+
+        HttpResponse<InputStream> response = send(CheckMetrics.TARGET_SITE, uri, request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = new BoundedInputStream(response.body(), maxBytes)) {
+            if (response.statusCode() >= 400) {
+                throw new IOException("HTTP " + response.statusCode() + " от " + uri.getHost());
+            }
+            String contentType = response.headers().firstValue("Content-Type").orElse("text/html");
+            if (!contentType.toLowerCase(Locale.ROOT).contains("html")) {
+                throw new IOException("Ответ не HTML: " + contentType);
+            }
+            return reader.read(new InputStreamReader(body, charsetOf(contentType)));
+        }
+    }
+
+    /**
+     * GET JSON-документа. 404 означает, что данных нет, и возвращается пустой
+     * Optional; остальные ошибки HTTP — исключение. target — тип цели
+     * для метрик (CheckMetrics.TARGET_*).
+     */
+    public Optional<String> getJson(String target, String url, String accept) throws IOException, InterruptedException {
+        URI uri = URI.create(url);
+        HttpRequest request = newRequest(uri)
+                .GET()
+                .header("Accept", accept)
+                .build();
+
+        HttpResponse<String> response = send(target, uri, request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() >= 400) {
+            throw new IOException("HTTP " + response.statusCode() + " от " + uri.getHost());
+        }
+        return Optional.of(response.body());
+    }
+
+    public String postJson(String target, String url, String body) throws IOException, InterruptedException {
+        URI uri = URI.create(url);
+        HttpRequest request = newRequest(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+
+        HttpResponse<String> response = send(target, uri, request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IOException("HTTP " + response.statusCode() + " от " + uri.getHost());
+        }
+        return response.body();
+    }
+
+    private <T> HttpResponse<T> send(String target, URI uri, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        String endpoint = HostHealth.endpoint(uri);
+        if (!health.allowRequest(endpoint)) {
+            throw new IOException("Хост временно исключён после серии ошибок: " + uri.getHost());
+        }
+        Semaphore permits = permitsFor(uri);
+        if (!permits.tryAcquire(readTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IOException("Превышено число одновременных запросов к " + uri.getHost());
+        }
+
+        long started = System.nanoTime();
+        try {
+            HttpResponse<T> response = client.send(request, handler);
+            // 5xx от API — отказ сервиса: он должен размыкать автомат так же, как сетевая ошибка.
+            boolean success = response.statusCode() < 500;
+            if (success) {
+                health.recordSuccess(target, endpoint, System.nanoTime() - started);
+            } else {
+                health.recordFailure(target, endpoint);
+            }
+            metrics.recordOutbound(target, success);
+            return response;
+        } catch (IOException e) {
+            health.recordFailure(target, endpoint);
+            metrics.recordOutbound(target, false);
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Таймаут берётся из статистики хоста (см. HostHealth.timeoutFor).
+    private HttpRequest.Builder newRequest(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .header("User-Agent", USER_AGENT)
+                .timeout(health.timeoutFor(HostHealth.endpoint(uri)));
+    }
+
+    /**
+     * Отменённый запрос JDK-клиент может так и не завершить, поэтому разрешение
+     * возвращается и по завершении, и по отмене; повторный вызов ничего не делает.
+     */
+    private static Runnable releaseOnce(Semaphore permits) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private Semaphore permitsFor(URI uri) {
+        return hostPermits.get(uri.getHost() + ":" + uri.getPort(), host -> new Semaphore(maxPerHost));
+    }
+
+    private static Charset charsetOf(String contentType) {
+        int at = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (at >= 0) {
+            String name = contentType.substring(at + 8).split("[;\\s]", 2)[0].replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                // неизвестная кодировка: читаем как UTF-8
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    @FunctionalInterface
+    public interface PageReader<T> {
+        T read(Reader body) throws IOException;
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    public record ProbeResponse(int status, SSLSession sslSession) {
+
+        static final ProbeResponse FAILED = new ProbeResponse(-1, null);
+
+        public boolean reachable() {
+            return status >= 200 && status < 400;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final JobScheduler jobScheduler;
+
+    public JobController(JobScheduler jobScheduler) {
+        this.jobScheduler = jobScheduler;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody Map<String, Object> request) {
+        Set<String> urls = new LinkedHashSet<>();
+
+        if (request.get("urls") instanceof List<?> list) {
+            for (Object url : list) {
+                if (url != null && !url.toString().isBlank()) {
+                    urls.add(url.toString().trim());
+                }
+            }
+        }
+        if (request.get("text") instanceof String text) {
+            urls.addAll(UrlExtractor.extract(text));
+        }
+
+        return accept(urls);
+    }
+
+    @PostMapping("/file")
+    public ResponseEntity<?> submitFile(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Файл пустой"));
+        }
+
+        try {
+            return accept(DocumentLinkReader.readUpload(file.getOriginalFilename(), file.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ошибка чтения файла: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        CheckJob job = jobScheduler.get(id);
+        if (job == null) {
+            return notFound();
+        }
+        return ResponseEntity.ok(job.summary());
+    }
+
+    @GetMapping("/{id}/results")
+    public ResponseEntity<?> results(@PathVariable String id,
+                                     @RequestParam(defaultValue = "0") int offset,
+                                     @RequestParam(defaultValue = "100") int limit) {
+        CheckJob job = jobScheduler.get(id);
+        if (job == null) {
+            return notFound();
+        }
+
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Map<String, Object>> page = job.results(offset, pageSize);
+
+        Map<String, Object> body = job.summary();
+        body.put("offset", offset);
+        body.put("limit", pageSize);
+        body.put("results", page);
+        if (offset + page.size() < job.completed()) {
+            body.put("nextOffset", offset + page.size());
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancel(@PathVariable String id) {
+        if (!jobScheduler.cancel(id)) {
+            return notFound();
+        }
+        return ResponseEntity.ok(jobScheduler.get(id).summary());
+    }
+
+    private ResponseEntity<?> accept(Collection<String> urls) {
+        try {
+            CheckJob job = jobScheduler.submit(urls);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Location", "/api/jobs/" + job.id())
+                    .body(job.summary());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (JobScheduler.QueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "30")
+                    .body(Map.of(
+                            "error", e.getMessage(),
+                            "remainingCapacity", e.remainingCapacity()
+                    ));
+        }
+    }
+
+    private ResponseEntity<?> notFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Задание не найдено"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь фоновых заданий. Диспетчер по кругу берёт по одной ссылке
+ * из каждого активного задания, поэтому большое задание не вытесняет
+ * маленькие. Проверки идут асинхронно через BatchChecker, app.jobs.workers
+ * ограничивает число незавершённых ссылок; задание, занявшее свою долю мест,
+ * пропускается, пока у других есть ссылки, — иначе ссылки на один медленный
+ * хост, ждущие в очереди хоста, заняли бы все места. Общее число ожидающих
+ * ссылок ограничено: если очередь полна, новое задание отклоняется.
+ */
+@Component
+public class JobScheduler {
+
+    private final BatchChecker batchChecker;
+    private final int queueCapacity;
+    private final int maxUrlsPerJob;
+    private final Duration retention;
+    private final int workerCount;
+    private final Semaphore workerPermits;
+    private final Thread dispatcher;
+    private final Map<String, CheckJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<CheckJob> active = new ArrayDeque<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public JobScheduler(BatchChecker batchChecker,
+                        CheckMetrics metrics,
+                        @Value("${app.jobs.workers:8}") int workerCount,
+                        @Value("${app.jobs.queue-capacity:20000}") int queueCapacity,
+                        @Value("${app.jobs.max-urls:10000}") int maxUrlsPerJob,
+                        @Value("${app.jobs.retention:PT1H}") Duration retention) {
+        this.batchChecker = batchChecker;
+        this.queueCapacity = queueCapacity;
+        this.maxUrlsPerJob = maxUrlsPerJob;
+        this.retention = retention;
+        this.workerCount = workerCount;
+        this.workerPermits = new Semaphore(workerCount);
+        metrics.gauge("linkchecker.jobs.queued.urls", "Ссылки в очереди фоновых заданий", queued, AtomicInteger::get);
+        metrics.gauge("linkchecker.jobs.active", "Незавершённые фоновые задания", this, JobScheduler::activeJobs);
+        this.dispatcher = new Thread(this::dispatchLoop, "job-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public CheckJob submit(Collection<String> urls) {
+        List<String> links = batchChecker.selectLinks(urls, maxUrlsPerJob);
+        if (links.isEmpty()) {
+            throw new IllegalArgumentException("Не найдено ссылок для проверки");
+        }
+
+        while (true) {
+            int current = queued.get();
+            if (current + links.size() > queueCapacity) {
+                throw new QueueFullException(queueCapacity - current);
+            }
+            if (queued.compareAndSet(current, current + links.size())) {
+                break;
+            }
+        }
+
+        CheckJob job = new CheckJob(links);
+        jobs.put(job.id(), job);
+        synchronized (active) {
+            active.addLast(job);
+            active.notifyAll();
+        }
+        return job;
+    }
+
+    public CheckJob get(String id) {
+        return jobs.get(id);
+    }
+
+    public boolean cancel(String id) {
+        CheckJob job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        queued.addAndGet(-job.cancel());
+        synchronized (active) {
+            active.remove(job);
+        }
+        return true;
+    }
+
+    public int activeJobs() {
+        synchronized (active) {
+            return active.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.cleanup-interval:PT5M}")
+    public void removeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.interrupt();
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                workerPermits.acquire();
+                CheckJob job = nextJob();
+                String url = job.nextUrl();
+                if (url == null) {
+                    workerPermits.release();
+                    continue;
+                }
+                queued.decrementAndGet();
+                batchChecker.checkAsync(url)
+                        .thenAccept(job::record)
+                        .whenComplete((done, error) -> workerPermits.release());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private CheckJob nextJob() throws InterruptedException {
+        synchronized (active) {
+            while (active.isEmpty()) {
+                active.wait();
+            }
+            int share = Math.max(1, workerCount / active.size());
+            for (int i = 0; i < active.size() - 1 && active.peekFirst().inFlight() >= share; i++) {
+                active.addLast(active.pollFirst());
+            }
+            CheckJob job = active.pollFirst();
+            if (job.undispatched() > 1) {
+                active.addLast(job);
+            }
+            return job;
+        }
+    }
+
+    public static class QueueFullException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int remainingCapacity;
+
+        QueueFullException(int remainingCapacity) {
+            super("Очередь проверок заполнена, повторите позже");
+            this.remainingCapacity = Math.max(0, remainingCapacity);
+        }
+
+        public int remainingCapacity() {
+            return remainingCapacity;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Список публичных суффиксов (publicsuffix.org) в виде префиксного дерева
+ * по меткам домена справа налево. Узлы после загрузки хранят детей в
+ * отсортированных массивах, поиск по метке — двоичный.
+ */
+final class PublicSuffixList {
+
+    private static final String RESOURCE = "/public_suffix_list.dat";
+
+    private final Node root;
+
+    private PublicSuffixList(Node root) {
+        this.root = root;
+    }
+
+    static PublicSuffixList bundled() {
+        try (InputStream in = PublicSuffixList.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Не найден " + RESOURCE);
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static PublicSuffixList load(InputStream in) throws IOException {
+        Builder root = new Builder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("//")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            String rule = (space < 0 ? line : line.substring(0, space)).toLowerCase(Locale.ROOT);
+
+            boolean exception = rule.startsWith("!");
+            String[] labels = toAscii(exception ? rule.substring(1) : rule).split("\\.");
+            Builder node = root;
+            for (int i = labels.length - 1; i >= 0; i--) {
+                node = node.children.computeIfAbsent(labels[i], label -> new Builder());
+            }
+            if (exception) {
+                node.exception = true;
+            } else {
+                node.rule = true;
+            }
+        }
+        return new PublicSuffixList(root.freeze());
+    }
+
+    /**
+     * Регистрируемый домен (публичный суффикс плюс одна метка), например
+     * "shop.example.co.uk" → "example.co.uk". Для самого суффикса — null.
+     */
+    String registrableDomain(String host) {
+        if (host == null || host.isEmpty()) {
+            return null;
+        }
+        String[] labels = host.toLowerCase(Locale.ROOT).split("\\.");
+        int count = labels.length;
+
+        // Правило по умолчанию "*": суффикс — последняя метка.
+        int suffix = 1;
+        Node node = root;
+        for (int depth = 0; depth < count; depth++) {
+            String label = labels[count - 1 - depth];
+            Node exact = node.child(label);
+            if (exact != null && exact.exception) {
+                suffix = depth;
+                break;
+            }
+            Node wildcard = node.child("*");
+            if (wildcard != null && wildcard.rule) {
+                suffix = Math.max(suffix, depth + 1);
+            }
+            if (exact == null) {
+                break;
+            }
+            if (exact.rule) {
+                suffix = Math.max(suffix, depth + 1);
+            }
+            node = exact;
+        }
+
+        if (count <= suffix) {
+            return null;
+        }
+        return String.join(".", Arrays.copyOfRange(labels, count - suffix - 1, count));
+    }
+
+    private static String toAscii(String rule) {
+        try {
+            return IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED);
+        } catch (IllegalArgumentException e) {
+            return rule;
+        }
+    }
+
+    private static final class Node {
+
+        private static final String[] NO_LABELS = new String[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final String[] labels;
+        final Node[] children;
+        final boolean rule;
+        final boolean exception;
+
+        Node(String[] labels, Node[] children, boolean rule, boolean exception) {
+            this.labels = labels.length == 0 ? NO_LABELS : labels;
+            this.children = children.length == 0 ? NO_CHILDREN : children;
+            this.rule = rule;
+            this.exception = exception;
+        }
+
+        Node child(String label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class Builder {
+
+        final Map<String, Builder> children = new TreeMap<>();
+        boolean rule;
+        boolean exception;
+
+        Node freeze() {
+            String[] labels = new String[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<String, Builder> child : children.entrySet()) {
+                labels[i] = child.getKey().intern();
+                nodes[i] = child.getValue().freeze();
+                i++;
+            }
+            return new Node(labels, nodes, rule, exception);
+        }
+    }
+}
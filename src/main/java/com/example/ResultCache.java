@@ -0,0 +1,203 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+@Component
+public class ResultCache {
+
+    // Узел Caffeine, ключ без символов и сама CompactResult.
+    private static final int ENTRY_OVERHEAD_BYTES = 152;
+    private static final int DETAIL_BYTES = 64;
+    // Обновление запрашивается один раз на запись; если оно не состоялось, повтор не раньше чем через минуту.
+    private static final long REFRESH_RETRY_SECONDS = 60;
+
+    private final Cache<String, CompactResult> cache;
+    private final ResultStore store;
+    private final LongAdder diskHits = new LongAdder();
+    // Сумма оценок и число записей ведутся на вставке и удалении,
+    // чтобы /api/stats не обходил весь кеш.
+    private final LongAdder entries = new LongAdder();
+    private final DoubleAdder scoreSum = new DoubleAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final long ttlSeconds;
+    private final long partialTtlSeconds;
+    private final long refreshAheadSeconds;
+    private final int refreshMinHits;
+    private volatile Consumer<String> refresher;
+
+    public ResultCache(ResultStore store,
+                       CheckMetrics metrics,
+                       @Value("${app.cache.max-entries:100000}") long maxEntries,
+                       @Value("${app.cache.max-bytes:0}") long maxBytes,
+                       @Value("${app.cache.ttl:24h}") Duration ttl,
+                       @Value("${app.cache.partial-ttl:PT5M}") Duration partialTtl,
+                       @Value("${app.cache.refresh.ahead:PT2H}") Duration refreshAhead,
+                       @Value("${app.cache.refresh.min-hits:3}") int refreshMinHits,
+                       @Value("${app.cache.refresh.grace:PT1H}") Duration grace) {
+        this.store = store;
+        this.ttlSeconds = ttl.toSeconds();
+        this.partialTtlSeconds = Math.min(partialTtl.toSeconds(), ttlSeconds);
+        this.refreshAheadSeconds = Math.min(refreshAhead.toSeconds(), ttlSeconds);
+        this.refreshMinHits = refreshMinHits;
+        // Записи живут ttl + grace: в окне grace устаревший результат ещё отдаётся,
+        // пока в фоне идёт повторная проверка. Неполный результат (часть проверок
+        // не успела) живёт только partial-ttl и устаревшим не отдаётся.
+        Caffeine<String, CompactResult> builder = Caffeine.newBuilder()
+                .expireAfter(new ExpireFromTimestamp(ttl.plus(grace), Duration.ofSeconds(partialTtlSeconds)))
+                .removalListener((String link, CompactResult result, RemovalCause cause) -> {
+                    if (result != null) {
+                        entries.decrement();
+                        scoreSum.add(-result.score());
+                    }
+                })
+                .recordStats();
+
+        if (maxBytes > 0) {
+            builder.maximumWeight(maxBytes)
+                    .weigher((String link, CompactResult result) -> estimateBytes(link, result));
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+
+        this.cache = builder.build();
+        metrics.monitorCache("results", cache);
+        metrics.gauge("linkchecker.results.disk.hits", "Ответы, поднятые из журнала на диске",
+                diskHits, LongAdder::sum);
+    }
+
+    /**
+     * Фоновое обновление записей: популярные обновляются за app.cache.refresh.ahead
+     * до истечения, устаревшие в окне grace — при первом же обращении.
+     * Без обработчика устаревшие записи считаются отсутствующими.
+     */
+    void onRefresh(Consumer<String> refresher) {
+        this.refresher = refresher;
+    }
+
+    public CheckerController.SiteResult get(String normalizedLink) {
+        CompactResult result = cache.getIfPresent(normalizedLink);
+        if (result == null) {
+            return loadFromStore(normalizedLink);
+        }
+
+        int hits = result.recordHit();
+        long now = Instant.now().getEpochSecond();
+        long age = now - result.checkedAtEpochSecond();
+        if (result.partial()) {
+            return age < partialTtlSeconds ? result.toSiteResult(normalizedLink) : loadFromStore(normalizedLink);
+        }
+        Consumer<String> refresh = refresher;
+        if (age >= ttlSeconds) {
+            if (refresh == null) {
+                return loadFromStore(normalizedLink);
+            }
+            staleHits.increment();
+            if (result.claimRefresh(now, REFRESH_RETRY_SECONDS)) {
+                refresh.accept(normalizedLink);
+            }
+        } else if (refresh != null && hits >= refreshMinHits && age >= ttlSeconds - refreshAheadSeconds
+                && result.claimRefresh(now, REFRESH_RETRY_SECONDS)) {
+            refresh.accept(normalizedLink);
+        }
+        return result.toSiteResult(normalizedLink);
+    }
+
+    // Только свежий результат: используется перед запуском новой проверки.
+    public CheckerController.SiteResult peek(String normalizedLink) {
+        CompactResult result = cache.asMap().get(normalizedLink);
+        if (result != null && Instant.now().getEpochSecond() - result.checkedAtEpochSecond()
+                < (result.partial() ? partialTtlSeconds : ttlSeconds)) {
+            return result.toSiteResult(normalizedLink);
+        }
+        return loadFromStore(normalizedLink);
+    }
+
+    public void put(String normalizedLink, CheckerController.SiteResult result) {
+        CompactResult compact = CompactResult.of(result);
+        CompactResult previous = cache.asMap().put(normalizedLink, compact);
+        if (previous != null) {
+            compact.inheritHits(previous);
+        }
+        added(compact);
+        // Неполный результат на диск не пишется: после рестарта его всё равно пора перепроверять.
+        if (!compact.partial()) {
+            store.append(result);
+        }
+    }
+
+    public long staleHits() {
+        return staleHits.sum();
+    }
+
+    public long diskHits() {
+        return diskHits.sum();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public double averageScore() {
+        long count = entries.sum();
+        return count > 0 ? scoreSum.sum() / count : 0.0;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private CheckerController.SiteResult loadFromStore(String normalizedLink) {
+        CheckerController.SiteResult stored = store.read(normalizedLink);
+        if (stored == null) {
+            return null;
+        }
+        diskHits.increment();
+        CompactResult compact = CompactResult.of(stored);
+        if (cache.asMap().putIfAbsent(normalizedLink, compact) == null) {
+            added(compact);
+        }
+        return stored;
+    }
+
+    private void added(CompactResult result) {
+        entries.increment();
+        scoreSum.add(result.score());
+    }
+
+    private static int estimateBytes(String link, CompactResult result) {
+        return ENTRY_OVERHEAD_BYTES + link.length() * 2 + DETAIL_BYTES * result.extraCount();
+    }
+
+    private record ExpireFromTimestamp(Duration ttl, Duration partialTtl) implements Expiry<String, CompactResult> {
+
+        @Override
+        public long expireAfterCreate(String link, CompactResult result, long currentTime) {
+            Duration age = Duration.between(Instant.ofEpochSecond(result.checkedAtEpochSecond()), Instant.now());
+            return Math.max(0, (result.partial() ? partialTtl : ttl).minus(age).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String link, CompactResult result,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(link, result, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String link, CompactResult result,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновая повторная проверка популярных и устаревших записей кеша результатов.
+ * Пул небольшой, а запуск проверок ограничен app.cache.refresh.rate в секунду,
+ * чтобы обновления не вытесняли пользовательские запросы. Этапы обновлений
+ * выполняются в собственном пуле app.cache.refresh.stage-threads с пониженным
+ * приоритетом потоков, а не в общем checkExecutor. Одна ссылка одновременно
+ * обновляется не больше одного раза; при переполненной очереди обновление
+ * пропускается — запись обновится при следующем обращении.
+ */
+@Component
+public class ResultRefresher {
+
+    private final CheckerController checker;
+    private final ResultCache cache;
+    private final boolean enabled;
+    private final long intervalNanos;
+    private final ExecutorService workers;
+    private final ExecutorService stages;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public ResultRefresher(CheckerController checker,
+                           ResultCache cache,
+                           CheckMetrics metrics,
+                           @Value("${app.cache.refresh.enabled:true}") boolean enabled,
+                           @Value("${app.cache.refresh.threads:4}") int threads,
+                           @Value("${app.cache.refresh.stage-threads:8}") int stageThreads,
+                           @Value("${app.cache.refresh.rate:5}") double ratePerSecond,
+                           @Value("${app.cache.refresh.max-queued:1000}") int maxQueued) {
+        this.checker = checker;
+        this.cache = cache;
+        this.enabled = enabled;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(ratePerSecond, 0.001));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                lowPriority(CheckExecutorConfig.namedThreads("refresh-"))
+        );
+        executor.allowCoreThreadTimeOut(true);
+        this.workers = metrics.monitorExecutor("refresh", executor);
+        // Очередь не ограничена: в ней не больше этапов, чем у threads одновременных обновлений.
+        ThreadPoolExecutor stageExecutor = new ThreadPoolExecutor(
+                stageThreads, stageThreads,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                lowPriority(CheckExecutorConfig.namedThreads("refresh-stage-"))
+        );
+        stageExecutor.allowCoreThreadTimeOut(true);
+        this.stages = metrics.monitorExecutor("refresh-stages", stageExecutor);
+        metrics.gauge("linkchecker.results.refreshed", "Записи кеша, обновлённые в фоне", refreshed, LongAdder::sum);
+    }
+
+    @PostConstruct
+    public void register() {
+        if (enabled) {
+            cache.onRefresh(this::schedule);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+        stages.shutdownNow();
+    }
+
+    public long refreshed() {
+        return refreshed.sum();
+    }
+
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    void schedule(String normalizedLink) {
+        if (!pending.add(normalizedLink)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    awaitSlot();
+                    checker.refresh(normalizedLink, stages);
+                    refreshed.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    skipped.increment();
+                } finally {
+                    pending.remove(normalizedLink);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(normalizedLink);
+            skipped.increment();
+        }
+    }
+
+    private static ThreadFactory lowPriority(ThreadFactory threads) {
+        return runnable -> {
+            Thread thread = threads.newThread(runnable);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    // Равномерный темп: каждая проверка занимает свой слот в intervalNanos от предыдущей.
+    private void awaitSlot() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextSlot.getAndAccumulate(now, (previous, current) ->
+                Math.max(previous, current) + intervalNanos));
+        if (slot > now) {
+            TimeUnit.NANOSECONDS.sleep(slot - now);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.example;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал результатов на диске: каждая запись — [длина][CRC32][JSON].
+ * При старте журнал сканируется и строится индекс ссылка -> смещение;
+ * оборванный хвост (например, после kill -9) отбрасывается по CRC.
+ * Индекс ограничен app.cache.store.max-entries: при загрузке и сжатии
+ * лишние записи, истекающие раньше других, отбрасываются.
+ */
+@Component
+public class ResultStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultStore.class);
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path path;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private long deadBytes;
+
+    public ResultStore(CheckMetrics metrics,
+                       @Value("${app.cache.store.enabled:true}") boolean enabled,
+                       @Value("${app.cache.store.path:data/results.log}") String path,
+                       @Value("${app.cache.ttl:24h}") Duration ttl,
+                       @Value("${app.cache.store.max-entries:1000000}") int maxEntries) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        if (enabled) {
+            open();
+        }
+        metrics.gauge("linkchecker.results.store.entries", "Записи в журнале результатов на диске",
+                this, ResultStore::size);
+    }
+
+    public CheckerController.SiteResult read(String link) {
+        if (!enabled) {
+            return null;
+        }
+
+        try {
+            byte[] payload;
+            synchronized (this) {
+                Location location = index.get(link);
+                if (location == null) {
+                    return null;
+                }
+                if (location.expiresAt() <= System.currentTimeMillis()) {
+                    index.remove(link);
+                    deadBytes += location.length();
+                    return null;
+                }
+                payload = readPayload(channel, location.offset());
+            }
+            CheckerController.SiteResult result = payload == null ? null : decode(payload);
+            return result != null && link.equals(result.link()) ? result : null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось прочитать запись для {}: {}", link, e.getMessage());
+            return null;
+        }
+    }
+
+    public void append(CheckerController.SiteResult result) {
+        if (!enabled) {
+            return;
+        }
+
+        byte[] payload = encode(result).getBytes(StandardCharsets.UTF_8);
+        if (payload.length > MAX_RECORD_BYTES) {
+            return;
+        }
+        long expiresAt = result.timestamp().plus(ttl).toEpochMilli();
+
+        try {
+            synchronized (this) {
+                long offset = channel.size();
+                writeRecord(channel, offset, payload);
+                Location previous = index.put(result.link(), new Location(offset, HEADER_BYTES + payload.length, expiresAt));
+                if (previous != null) {
+                    deadBytes += previous.length();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось записать результат для {}: {}", result.link(), e.getMessage());
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Сжатие журнала: живые записи переписываются в новый файл без блокировки,
+     * чтение и запись в это время идут в старый журнал. Под блокировкой только
+     * дописываются записи, появившиеся за время копирования, и подменяется файл.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.store.compact-interval:PT10M}",
+            initialDelayString = "${app.cache.store.compact-interval:PT10M}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        index.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAt() <= now) {
+                synchronized (this) {
+                    deadBytes += entry.getValue().length();
+                }
+                return true;
+            }
+            return false;
+        });
+
+        FileChannel source;
+        Map<String, Location> snapshot;
+        synchronized (this) {
+            trimIndex();
+            try {
+                long total = channel.size();
+                if (total == 0 || deadBytes * 2 < total) {
+                    return;
+                }
+            } catch (IOException e) {
+                log.warn("Не удалось сжать журнал {}: {}", path, e.getMessage());
+                return;
+            }
+            source = channel;
+            snapshot = new HashMap<>(index);
+        }
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            rewrite(source, snapshot, compacted);
+        } catch (IOException e) {
+            log.warn("Не удалось сжать журнал {}: {}", path, e.getMessage());
+            deleteQuietly(compacted);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private void open() {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            load();
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось открыть журнал результатов " + path, e);
+        }
+    }
+
+    private void load() throws IOException {
+        long now = System.currentTimeMillis();
+        long offset = 0;
+        long size = channel.size();
+
+        while (offset < size) {
+            byte[] payload = readPayload(channel, offset);
+            if (payload == null) {
+                log.warn("Журнал {} повреждён начиная с {}, хвост отброшен", path, offset);
+                channel.truncate(offset);
+                break;
+            }
+
+            JSONObject json = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+            String link = json.getString("link");
+            long expiresAt = json.getLong("timestamp") + ttl.toMillis();
+            int length = HEADER_BYTES + payload.length;
+
+            Location previous = expiresAt > now
+                    ? index.put(link, new Location(offset, length, expiresAt))
+                    : index.remove(link);
+            deadBytes += previous != null ? previous.length() : 0;
+            if (expiresAt <= now) {
+                deadBytes += length;
+            }
+            offset += length;
+        }
+        trimIndex();
+
+        log.info("Журнал {} загружен: {} записей", path, index.size());
+    }
+
+    // Индекс не растёт сверх max-entries: лишними считаются записи, которые истекут раньше других.
+    private void trimIndex() {
+        int excess = index.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<String, Location>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt()));
+        for (Map.Entry<String, Location> entry : entries.subList(0, excess)) {
+            if (index.remove(entry.getKey(), entry.getValue())) {
+                deadBytes += entry.getValue().length();
+            }
+        }
+    }
+
+    private void rewrite(FileChannel source, Map<String, Location> snapshot, Path compacted) throws IOException {
+        Map<String, Location> moved = new HashMap<>();
+
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Map.Entry<String, Location> entry : snapshot.entrySet()) {
+                offset = copyRecord(source, entry.getKey(), entry.getValue(), target, offset, moved);
+            }
+
+            synchronized (this) {
+                if (channel != source) {
+                    return;
+                }
+                // Записи, изменённые или добавленные во время копирования, переносим под блокировкой.
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    if (!entry.getValue().equals(snapshot.get(entry.getKey()))) {
+                        offset = copyRecord(channel, entry.getKey(), entry.getValue(), target, offset, moved);
+                    }
+                }
+                moved.keySet().retainAll(index.keySet());
+                target.force(true);
+                long live = moved.values().stream().mapToLong(Location::length).sum();
+                swap(compacted, moved, offset - live);
+            }
+        }
+    }
+
+    private long copyRecord(FileChannel from, String link, Location location, FileChannel target, long offset,
+                            Map<String, Location> moved) throws IOException {
+        byte[] payload = readPayload(from, location.offset());
+        if (payload == null) {
+            return offset;
+        }
+        writeRecord(target, offset, payload);
+        moved.put(link, new Location(offset, HEADER_BYTES + payload.length, location.expiresAt()));
+        return offset + HEADER_BYTES + payload.length;
+    }
+
+    // Вызывается под блокировкой. Если файл не удалось подменить, остаётся открытым прежний журнал.
+    private void swap(Path compacted, Map<String, Location> moved, long dead) throws IOException {
+        channel.close();
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            throw e;
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        index.putAll(moved);
+        deadBytes = dead;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // останется до следующего сжатия, которое его перезапишет
+        }
+    }
+
+    private static void writeRecord(FileChannel target, long offset, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            offset += target.write(buffer, offset);
+        }
+    }
+
+    private static byte[] readPayload(FileChannel source, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(source, header, offset)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int expectedCrc = header.getInt(4);
+        if (length <= 0 || length > MAX_RECORD_BYTES) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(source, payload, offset + HEADER_BYTES)) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        return (int) crc.getValue() == expectedCrc ? payload.array() : null;
+    }
+
+    private static boolean readFully(FileChannel source, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String encode(CheckerController.SiteResult result) {
+        return new JSONObject()
+                .put("link", result.link())
+                .put("https", result.https())
+                .put("ageMonths", result.ageMonths())
+                .put("hasContact", result.hasContact())
+                .put("safeBrowsing", result.safeBrowsing())
+                .put("validSSL", result.validSSL())
+                .put("validDomain", result.validDomain())
+                .put("hasPrivacyPolicy", result.hasPrivacyPolicy())
+                .put("score", result.score())
+                .put("level", result.level())
+                .put("timestamp", result.timestamp().toEpochMilli())
+                .put("details", result.details() == null ? Map.of() : result.details())
+                .toString();
+    }
+
+    private static CheckerController.SiteResult decode(byte[] payload) {
+        JSONObject json = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+        return new CheckerController.SiteResult(
+                json.getString("link"),
+                json.getBoolean("https"),
+                json.getInt("ageMonths"),
+                json.getBoolean("hasContact"),
+                json.getBoolean("safeBrowsing"),
+                json.getBoolean("validSSL"),
+                json.getBoolean("validDomain"),
+                json.getBoolean("hasPrivacyPolicy"),
+                json.getDouble("score"),
+                json.getString("level"),
+                Instant.ofEpochMilli(json.getLong("timestamp")),
+                json.getJSONObject("details").toMap()
+        );
+    }
+
+    private record Location(long offset, int length, long expiresAt) {}
+}
@@ -0,0 +1,255 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка ссылок в Safe Browsing. Когда локальная база префиксов готова,
+ * ссылка проверяется по ней, а сеть нужна только для подтверждения совпадения.
+ * Иначе используются пакетные запросы к threatMatches:find: ожидающие проверки
+ * всех одновременных запросов собираются в окне linger и отправляются
+ * одним запросом до max-batch ссылок, результат раздаётся каждому вызывающему.
+ * Ошибка сети завершает проверку исключением, а не "безопасным" ответом.
+ * Ссылку, для которой не удалось построить выражения, локальная база проверить
+ * не может, поэтому она тоже уходит в threatMatches:find.
+ */
+@Component
+public class SafeBrowsingClient {
+
+    private static final Logger log = LoggerFactory.getLogger(SafeBrowsingClient.class);
+
+    private final HttpProbeClient http;
+    private final ThreatListDatabase threatLists;
+    private final ExecutorService networkExecutor;
+    private final String apiKey;
+    private final String baseUrl;
+    private final long lingerNanos;
+    private final int maxBatch;
+    private final String requestPrefix;
+    private final LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Map<String, CompletableFuture<Boolean>> pending = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> verdicts;
+    private final Thread flusher;
+
+    public SafeBrowsingClient(HttpProbeClient http,
+                              ThreatListDatabase threatLists,
+                              @Qualifier("networkExecutor") ExecutorService networkExecutor,
+                              CheckMetrics metrics,
+                              @Value("${app.safe-browsing.api-key:}") String apiKey,
+                              @Value("${app.safe-browsing.base-url:https://safebrowsing.googleapis.com}") String baseUrl,
+                              @Value("${app.safe-browsing.linger:PT0.02S}") Duration linger,
+                              @Value("${app.safe-browsing.max-batch:500}") int maxBatch,
+                              @Value("${app.safe-browsing.cache-ttl:PT30M}") Duration cacheTtl) {
+        this.http = http;
+        this.threatLists = threatLists;
+        this.networkExecutor = networkExecutor;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.lingerNanos = linger.toNanos();
+        this.maxBatch = Math.min(maxBatch, 500);
+        this.requestPrefix = buildRequestPrefix();
+        this.verdicts = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(100_000)
+                .recordStats()
+                .build();
+        metrics.monitorCache("safe-browsing-verdicts", verdicts);
+        metrics.gauge("linkchecker.safe.browsing.queued", "Ссылки, ожидающие пакетного запроса Safe Browsing",
+                pending, Map::size);
+
+        this.flusher = new Thread(this::flushLoop, "safe-browsing-batcher");
+        this.flusher.setDaemon(true);
+        if (isEnabled()) {
+            this.flusher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return apiKey != null && !apiKey.isEmpty() && !apiKey.startsWith("${");
+    }
+
+    public CompletableFuture<Boolean> isSafe(String url) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        Boolean cached = verdicts.getIfPresent(url);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        if (threatLists.isReady()) {
+            List<byte[]> expressionHashes = SafeBrowsingUrls.expressionHashes(url);
+            if (!expressionHashes.isEmpty()) {
+                return checkLocally(url, expressionHashes);
+            }
+        }
+
+        CompletableFuture<Boolean> verdict = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = pending.putIfAbsent(url, verdict);
+        if (existing != null) {
+            return existing;
+        }
+        queue.add(url);
+        return verdict;
+    }
+
+    private CompletableFuture<Boolean> checkLocally(String url, List<byte[]> expressionHashes) {
+        List<ThreatListDatabase.Hit> hits = threatLists.localMatches(expressionHashes);
+        if (hits.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        // Подтверждение — сетевой запрос, его ждёт этап в checkExecutor: выполняем в отдельном пуле.
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    boolean safe = !threatLists.confirmUnsafe(hits);
+                    verdicts.put(url, safe);
+                    return safe;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, networkExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public void prefetch(Collection<String> urls) {
+        if (threatLists.isReady()) {
+            return;
+        }
+        for (String url : urls) {
+            isSafe(url);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.interrupt();
+    }
+
+    private void flushLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                String first = queue.take();
+                List<String> batch = new ArrayList<>();
+                batch.add(first);
+
+                long lingerUntil = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    String next = queue.poll(Math.max(0, lingerUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // Вызывающие ждут вердикт в потоках checkExecutor, поэтому запрос идёт в отдельном пуле.
+                try {
+                    networkExecutor.execute(() -> send(batch));
+                } catch (RejectedExecutionException e) {
+                    fail(batch, e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void send(List<String> batch) {
+        Set<String> unsafe = new HashSet<>();
+        try {
+            String response = http.postJson(CheckMetrics.TARGET_SAFE_BROWSING,
+                    baseUrl + "/v4/threatMatches:find?key=" + apiKey, buildRequest(batch));
+            JSONArray matches = new JSONObject(response).optJSONArray("matches");
+            if (matches != null) {
+                for (int i = 0; i < matches.length(); i++) {
+                    unsafe.add(matches.getJSONObject(i).getJSONObject("threat").getString("url"));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Ошибка запроса Safe Browsing для {} ссылок: {}", batch.size(), e.getMessage());
+            fail(batch, e);
+            return;
+        }
+
+        for (String url : batch) {
+            boolean safe = !unsafe.contains(url);
+            verdicts.put(url, safe);
+            CompletableFuture<Boolean> verdict = pending.remove(url);
+            if (verdict != null) {
+                verdict.complete(safe);
+            }
+        }
+    }
+
+    private void fail(List<String> batch, Throwable error) {
+        for (String url : batch) {
+            CompletableFuture<Boolean> verdict = pending.remove(url);
+            if (verdict != null) {
+                verdict.completeExceptionally(error);
+            }
+        }
+    }
+
+    private String buildRequest(Collection<String> urls) {
+        StringBuilder body = new StringBuilder(requestPrefix.length() + urls.size() * 64).append(requestPrefix);
+        boolean first = true;
+        for (String url : urls) {
+            if (!first) {
+                body.append(',');
+            }
+            body.append("{\"url\":").append(JSONObject.quote(url)).append('}');
+            first = false;
+        }
+        return body.append("]}}").toString();
+    }
+
+    private static String buildRequestPrefix() {
+        JSONObject client = new JSONObject()
+                .put("clientId", "SiteChecker")
+                .put("clientVersion", "1.0.0");
+
+        JSONObject threatInfo = new JSONObject()
+                .put("threatTypes", new JSONArray()
+                        .put("MALWARE")
+                        .put("SOCIAL_ENGINEERING")
+                        .put("UNWANTED_SOFTWARE"))
+                .put("platformTypes", new JSONArray().put("ANY_PLATFORM"))
+                .put("threatEntryTypes", new JSONArray().put("URL"));
+
+        String threatInfoJson = threatInfo.toString();
+        return "{\"client\":" + client + ",\"threatInfo\":"
+                + threatInfoJson.substring(0, threatInfoJson.length() - 1)
+                + ",\"threatEntries\":[";
+    }
+}
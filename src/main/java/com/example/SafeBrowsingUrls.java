@@ -0,0 +1,134 @@
+package com.example;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Канонизация URL и построение выражений "суффикс хоста + префикс пути"
+ * по правилам Safe Browsing v4 (в упрощённом виде). Ссылка разбирается
+ * через URL, а не URI: URI отвергает хосты с "_" и неэкранированные
+ * символы в пути, а такие ссылки тоже нужно проверять.
+ */
+final class SafeBrowsingUrls {
+
+    private static final int MAX_HOST_SUFFIXES = 4;
+    private static final int MAX_PATH_PREFIXES = 4;
+
+    private SafeBrowsingUrls() {
+    }
+
+    static List<byte[]> expressionHashes(String url) {
+        List<byte[]> hashes = new ArrayList<>();
+        for (String expression : expressions(url)) {
+            MessageDigest digest = ThreatPrefixSet.newSha256();
+            hashes.add(digest.digest(expression.getBytes(StandardCharsets.UTF_8)));
+        }
+        return hashes;
+    }
+
+    /**
+     * Пустой набор означает, что ссылку не удалось разобрать: это не «совпадений нет».
+     */
+    static Set<String> expressions(String url) {
+        Set<String> expressions = new LinkedHashSet<>();
+        URL parsed;
+        try {
+            parsed = new URL(url.replaceAll("[\\t\\r\\n]", "").trim());
+        } catch (MalformedURLException e) {
+            return expressions;
+        }
+
+        String host = canonicalHost(parsed.getHost());
+        if (host == null || host.isEmpty()) {
+            return expressions;
+        }
+        String path = canonicalPath(parsed.getPath());
+        String query = parsed.getQuery();
+
+        List<String> paths = new ArrayList<>();
+        if (query != null) {
+            paths.add(path + "?" + query);
+        }
+        paths.add(path);
+        paths.add("/");
+        int from = 1;
+        for (int i = 0; i < MAX_PATH_PREFIXES - 1; i++) {
+            int slash = path.indexOf('/', from);
+            if (slash < 0) {
+                break;
+            }
+            paths.add(path.substring(0, slash + 1));
+            from = slash + 1;
+        }
+
+        for (String hostSuffix : hostSuffixes(host)) {
+            for (String candidate : paths) {
+                expressions.add(hostSuffix + candidate);
+            }
+        }
+        return expressions;
+    }
+
+    private static List<String> hostSuffixes(String host) {
+        List<String> hosts = new ArrayList<>();
+        hosts.add(host);
+        if (host.matches("\\d+\\.\\d+\\.\\d+\\.\\d+")) {
+            return hosts;
+        }
+
+        String[] labels = host.split("\\.");
+        int start = Math.max(1, labels.length - 5);
+        for (int i = start; i < labels.length - 1 && hosts.size() <= MAX_HOST_SUFFIXES; i++) {
+            hosts.add(String.join(".", Arrays.copyOfRange(labels, i, labels.length)));
+        }
+        return hosts;
+    }
+
+    private static String canonicalHost(String host) {
+        if (host == null) {
+            return null;
+        }
+        String canonical = host.toLowerCase(Locale.ROOT).replaceAll("\\.{2,}", ".");
+        while (canonical.startsWith(".")) {
+            canonical = canonical.substring(1);
+        }
+        while (canonical.endsWith(".")) {
+            canonical = canonical.substring(0, canonical.length() - 1);
+        }
+        return canonical;
+    }
+
+    private static String canonicalPath(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "/";
+        }
+
+        List<String> segments = new ArrayList<>();
+        for (String segment : rawPath.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                if (!segments.isEmpty()) {
+                    segments.remove(segments.size() - 1);
+                }
+                continue;
+            }
+            segments.add(segment);
+        }
+
+        StringBuilder path = new StringBuilder("/").append(String.join("/", segments));
+        if (rawPath.endsWith("/") && !segments.isEmpty()) {
+            path.append('/');
+        }
+        return path.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Поиск страниц контактов и политики конфиденциальности. Сначала один раз
+ * читается главная страница и её ссылки ищутся по ключевым словам; типовые
+ * пути перебираются (параллельно, до первого ответа) только для того,
+ * что на главной не нашлось.
+ */
+@Component
+public class SiteDiscovery {
+
+    private static final String[] CONTACT_PATHS = {
+            "/contact", "/contacts", "/contact-us", "/contactus",
+            "/about/contact", "/info/contact", "/feedback"
+    };
+    private static final String[] PRIVACY_PATHS = {
+            "/privacy", "/privacy-policy", "/privacypolicy",
+            "/privacy_policy", "/policy", "/legal/privacy"
+    };
+    private static final String[] CONTACT_KEYWORDS = {
+            "contact", "kontakt", "feedback", "контакт", "обратная связь", "связаться"
+    };
+    private static final String[] PRIVACY_KEYWORDS = {
+            "privacy", "datenschutz", "personal-data", "конфиденциальн", "персональн"
+    };
+
+    private final HttpProbeClient http;
+    private final long maxPageBytes;
+
+    public SiteDiscovery(HttpProbeClient http,
+                         @Value("${app.discovery.max-page-bytes:524288}") long maxPageBytes) {
+        this.http = http;
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    public Pages discover(String origin) {
+        Pages found;
+        try {
+            found = http.getPage(origin + "/", maxPageBytes, this::scanHomepage);
+        } catch (IOException | RuntimeException e) {
+            found = new Pages(false, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Pages(false, false);
+        }
+        if (found.hasContact() && found.hasPrivacyPolicy()) {
+            return found;
+        }
+
+        CompletableFuture<Boolean> contact = found.hasContact()
+                ? CompletableFuture.completedFuture(true)
+                : probeAny(origin, CONTACT_PATHS);
+        CompletableFuture<Boolean> privacy = found.hasPrivacyPolicy()
+                ? CompletableFuture.completedFuture(true)
+                : probeAny(origin, PRIVACY_PATHS);
+        try {
+            return new Pages(contact.get(), privacy.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            contact.cancel(true);
+            privacy.cancel(true);
+            return found;
+        } catch (ExecutionException e) {
+            return found;
+        }
+    }
+
+    private Pages scanHomepage(Reader body) throws IOException {
+        boolean[] found = new boolean[2];
+        AnchorScanner scanner = new AnchorScanner((href, text) -> {
+            String target = decode(href).toLowerCase(Locale.ROOT) + " " + text.toLowerCase(Locale.ROOT);
+            found[0] |= containsAny(target, CONTACT_KEYWORDS);
+            found[1] |= containsAny(target, PRIVACY_KEYWORDS);
+        });
+
+        char[] buffer = new char[8192];
+        int read;
+        while (!(found[0] && found[1]) && (read = body.read(buffer)) != -1) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            scanner.accept(buffer, 0, read);
+        }
+        scanner.finish();
+        return new Pages(found[0], found[1]);
+    }
+
+    // Запросы уходят сразу все (в пределах лимита на хост); первый успешный
+    // ответ завершает поиск и отменяет остальные.
+    private CompletableFuture<Boolean> probeAny(String origin, String[] paths) {
+        CompletableFuture<Boolean> hit = new CompletableFuture<>();
+        List<CompletableFuture<HttpProbeClient.ProbeResponse>> probes = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            if (hit.isDone() || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            CompletableFuture<HttpProbeClient.ProbeResponse> probe = http.headAsync(origin + path);
+            probe.thenAccept(response -> {
+                if (response.reachable()) {
+                    hit.complete(true);
+                }
+            });
+            probes.add(probe);
+        }
+
+        CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((done, error) -> hit.complete(false));
+        hit.whenComplete((found, error) -> probes.forEach(probe -> probe.cancel(true)));
+        return hit;
+    }
+
+    private static String decode(String href) {
+        try {
+            return URLDecoder.decode(href, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return href;
+        }
+    }
+
+    private static boolean containsAny(String text, String[] keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record Pages(boolean hasContact, boolean hasPrivacyPolicy) {}
+}
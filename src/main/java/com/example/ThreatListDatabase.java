@@ -0,0 +1,265 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальная база хеш-префиксов Safe Browsing по модели Update API v4.
+ * Списки обновляются инкрементально в фоне, проверка ссылки выполняется
+ * локально; к серверу обращаемся только за полными хешами после совпадения префикса.
+ */
+@Component
+public class ThreatListDatabase {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreatListDatabase.class);
+    private static final List<String> THREAT_TYPES = List.of("MALWARE", "SOCIAL_ENGINEERING", "UNWANTED_SOFTWARE");
+
+    private final HttpProbeClient http;
+    private final String apiKey;
+    private final String baseUrl;
+    private final boolean enabled;
+    private final Duration updateInterval;
+    private final Map<String, ListState> lists = new ConcurrentHashMap<>();
+    private final Cache<String, Set<String>> fullHashes;
+    private volatile long nextUpdateAt;
+    private volatile boolean ready;
+
+    public ThreatListDatabase(HttpProbeClient http,
+                              @Value("${app.safe-browsing.api-key:}") String apiKey,
+                              @Value("${app.safe-browsing.base-url:https://safebrowsing.googleapis.com}") String baseUrl,
+                              @Value("${app.safe-browsing.mode:update}") String mode,
+                              @Value("${app.safe-browsing.update-interval:PT30M}") Duration updateInterval,
+                              @Value("${app.safe-browsing.full-hash-ttl:PT5M}") Duration fullHashTtl) {
+        this.http = http;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.enabled = "update".equalsIgnoreCase(mode)
+                && apiKey != null && !apiKey.isEmpty() && !apiKey.startsWith("${");
+        this.updateInterval = updateInterval;
+        this.fullHashes = Caffeine.newBuilder()
+                .expireAfterWrite(fullHashTtl)
+                .maximumSize(100_000)
+                .build();
+        THREAT_TYPES.forEach(type -> lists.put(type, ListState.INITIAL));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int prefixCount() {
+        return lists.values().stream().mapToInt(state -> state.prefixes().size()).sum();
+    }
+
+    /**
+     * Совпадения префиксов для хешей выражений ссылки (SafeBrowsingUrls.expressionHashes).
+     */
+    public List<Hit> localMatches(List<byte[]> expressionHashes) {
+        List<Hit> hits = new ArrayList<>();
+        for (byte[] fullHash : expressionHashes) {
+            for (ListState state : lists.values()) {
+                byte[] prefix = state.prefixes().matchingPrefix(fullHash);
+                if (prefix != null) {
+                    hits.add(new Hit(prefix, fullHash));
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    public boolean confirmUnsafe(List<Hit> hits) throws IOException, InterruptedException {
+        Map<String, byte[]> unknownPrefixes = new LinkedHashMap<>();
+        for (Hit hit : hits) {
+            String prefix = encode(hit.prefix());
+            if (fullHashes.getIfPresent(prefix) == null) {
+                unknownPrefixes.put(prefix, hit.prefix());
+            }
+        }
+        if (!unknownPrefixes.isEmpty()) {
+            fetchFullHashes(unknownPrefixes.keySet());
+        }
+
+        for (Hit hit : hits) {
+            Set<String> confirmed = fullHashes.getIfPresent(encode(hit.prefix()));
+            if (confirmed != null && confirmed.contains(encode(hit.fullHash()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.safe-browsing.update-poll:PT30S}")
+    public void refresh() {
+        if (!enabled || System.currentTimeMillis() < nextUpdateAt) {
+            return;
+        }
+        try {
+            update();
+        } catch (Exception e) {
+            log.warn("Не удалось обновить списки Safe Browsing: {}", e.getMessage());
+            nextUpdateAt = System.currentTimeMillis() + Duration.ofMinutes(1).toMillis();
+        }
+    }
+
+    synchronized void update() throws IOException, InterruptedException {
+        JSONArray requests = new JSONArray();
+        for (String threatType : THREAT_TYPES) {
+            requests.put(listDescriptor(threatType)
+                    .put("state", lists.get(threatType).clientState())
+                    .put("constraints", new JSONObject()
+                            .put("supportedCompressions", new JSONArray().put("RAW"))));
+        }
+        JSONObject request = new JSONObject()
+                .put("client", client())
+                .put("listUpdateRequests", requests);
+
+        JSONObject response = new JSONObject(http.postJson(CheckMetrics.TARGET_SAFE_BROWSING,
+                baseUrl + "/v4/threatListUpdates:fetch?key=" + apiKey, request.toString()));
+
+        boolean consistent = true;
+        JSONArray updates = response.optJSONArray("listUpdateResponses");
+        for (int i = 0; updates != null && i < updates.length(); i++) {
+            consistent &= applyUpdate(updates.getJSONObject(i));
+        }
+
+        long wait = Math.max(parseDurationMillis(response.optString("minimumWaitDuration", "0s")), updateInterval.toMillis());
+        nextUpdateAt = System.currentTimeMillis() + (consistent ? wait : 0);
+        ready = lists.values().stream().noneMatch(state -> state.clientState().isEmpty());
+        log.info("Списки Safe Browsing обновлены: {} префиксов", prefixCount());
+    }
+
+    private boolean applyUpdate(JSONObject update) {
+        String threatType = update.getString("threatType");
+        ListState current = lists.get(threatType);
+        if (current == null) {
+            return true;
+        }
+
+        ThreatPrefixSet base = "FULL_UPDATE".equals(update.optString("responseType")) ? ThreatPrefixSet.EMPTY : current.prefixes();
+
+        List<int[]> removalIndices = new ArrayList<>();
+        JSONArray removals = update.optJSONArray("removals");
+        for (int i = 0; removals != null && i < removals.length(); i++) {
+            JSONArray indices = removals.getJSONObject(i).getJSONObject("rawIndices").getJSONArray("indices");
+            int[] values = new int[indices.length()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = indices.getInt(j);
+            }
+            removalIndices.add(values);
+        }
+
+        List<byte[]> additions = new ArrayList<>();
+        JSONArray additionSets = update.optJSONArray("additions");
+        for (int i = 0; additionSets != null && i < additionSets.length(); i++) {
+            JSONObject rawHashes = additionSets.getJSONObject(i).getJSONObject("rawHashes");
+            int prefixSize = rawHashes.getInt("prefixSize");
+            byte[] packed = Base64.getDecoder().decode(rawHashes.getString("rawHashes"));
+            for (int offset = 0; offset + prefixSize <= packed.length; offset += prefixSize) {
+                additions.add(Arrays.copyOfRange(packed, offset, offset + prefixSize));
+            }
+        }
+
+        int[] removed = removalIndices.stream().flatMapToInt(Arrays::stream).toArray();
+        ThreatPrefixSet updated = base.apply(removed, additions);
+
+        String expected = update.optJSONObject("checksum") != null
+                ? update.getJSONObject("checksum").optString("sha256", "") : "";
+        if (!expected.isEmpty() && !expected.equals(encode(updated.sha256()))) {
+            log.warn("Контрольная сумма списка {} не совпала, будет запрошено полное обновление", threatType);
+            lists.put(threatType, ListState.INITIAL);
+            return false;
+        }
+
+        lists.put(threatType, new ListState(update.optString("newClientState", ""), updated));
+        return true;
+    }
+
+    private void fetchFullHashes(Set<String> prefixes) throws IOException, InterruptedException {
+        JSONArray entries = new JSONArray();
+        prefixes.forEach(prefix -> entries.put(new JSONObject().put("hash", prefix)));
+
+        JSONArray clientStates = new JSONArray();
+        lists.values().forEach(state -> clientStates.put(state.clientState()));
+
+        JSONObject threatInfo = new JSONObject()
+                .put("threatTypes", new JSONArray(THREAT_TYPES))
+                .put("platformTypes", new JSONArray().put("ANY_PLATFORM"))
+                .put("threatEntryTypes", new JSONArray().put("URL"))
+                .put("threatEntries", entries);
+        JSONObject request = new JSONObject()
+                .put("client", client())
+                .put("clientStates", clientStates)
+                .put("threatInfo", threatInfo);
+
+        JSONObject response = new JSONObject(http.postJson(CheckMetrics.TARGET_SAFE_BROWSING,
+                baseUrl + "/v4/fullHashes:find?key=" + apiKey, request.toString()));
+
+        Map<String, Set<String>> byPrefix = new LinkedHashMap<>();
+        prefixes.forEach(prefix -> byPrefix.put(prefix, new HashSet<>()));
+
+        JSONArray matches = response.optJSONArray("matches");
+        for (int i = 0; matches != null && i < matches.length(); i++) {
+            String hash = matches.getJSONObject(i).getJSONObject("threat").getString("hash");
+            byte[] fullHash = Base64.getDecoder().decode(hash);
+            for (Map.Entry<String, Set<String>> entry : byPrefix.entrySet()) {
+                byte[] prefix = Base64.getDecoder().decode(entry.getKey());
+                if (Arrays.equals(prefix, 0, prefix.length, fullHash, 0, prefix.length)) {
+                    entry.getValue().add(hash);
+                }
+            }
+        }
+        fullHashes.putAll(byPrefix);
+    }
+
+    private static JSONObject listDescriptor(String threatType) {
+        return new JSONObject()
+                .put("threatType", threatType)
+                .put("platformType", "ANY_PLATFORM")
+                .put("threatEntryType", "URL");
+    }
+
+    private static JSONObject client() {
+        return new JSONObject()
+                .put("clientId", "SiteChecker")
+                .put("clientVersion", "1.0.0");
+    }
+
+    // Длительность в формате Safe Browsing ("86400.5s") в миллисекундах.
+    private static long parseDurationMillis(String duration) {
+        try {
+            return (long) (Double.parseDouble(duration.replace("s", "")) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    public record Hit(byte[] prefix, byte[] fullHash) {}
+
+    private record ListState(String clientState, ThreatPrefixSet prefixes) {
+        static final ListState INITIAL = new ListState("", ThreatPrefixSet.EMPTY);
+    }
+}
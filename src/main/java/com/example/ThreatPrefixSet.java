@@ -0,0 +1,172 @@
+package com.example;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемый отсортированный набор хеш-префиксов одного списка угроз.
+ * Четырёхбайтовые префиксы (подавляющее большинство) хранятся в int[],
+ * более длинные — отдельным отсортированным массивом. Порядок совпадает
+ * с лексикографическим порядком Update API, поэтому индексы удалений
+ * и контрольная сумма считаются по объединённой последовательности.
+ */
+public final class ThreatPrefixSet {
+
+    static final ThreatPrefixSet EMPTY = new ThreatPrefixSet(new int[0], new byte[0][]);
+
+    private final int[] shortPrefixes;
+    private final byte[][] longPrefixes;
+
+    private ThreatPrefixSet(int[] shortPrefixes, byte[][] longPrefixes) {
+        this.shortPrefixes = shortPrefixes;
+        this.longPrefixes = longPrefixes;
+    }
+
+    public int size() {
+        return shortPrefixes.length + longPrefixes.length;
+    }
+
+    public ThreatPrefixSet apply(int[] removals, List<byte[]> additions) {
+        int[] removed = removals.clone();
+        Arrays.sort(removed);
+
+        int[] keptShort = new int[shortPrefixes.length + additions.size()];
+        int shortCount = 0;
+        List<byte[]> keptLong = new ArrayList<>();
+
+        int s = 0;
+        int l = 0;
+        int index = 0;
+        int r = 0;
+        while (s < shortPrefixes.length || l < longPrefixes.length) {
+            boolean takeShort = l >= longPrefixes.length
+                    || (s < shortPrefixes.length && compareShortToLong(shortPrefixes[s], longPrefixes[l]) <= 0);
+
+            while (r < removed.length && removed[r] < index) {
+                r++;
+            }
+            boolean drop = r < removed.length && removed[r] == index;
+
+            if (takeShort) {
+                if (!drop) {
+                    keptShort[shortCount++] = shortPrefixes[s];
+                }
+                s++;
+            } else {
+                if (!drop) {
+                    keptLong.add(longPrefixes[l]);
+                }
+                l++;
+            }
+            index++;
+        }
+
+        for (byte[] prefix : additions) {
+            if (prefix.length == 4) {
+                keptShort[shortCount++] = toSortableInt(prefix, 0);
+            } else if (prefix.length > 4) {
+                keptLong.add(prefix);
+            }
+        }
+
+        int[] sortedShort = Arrays.copyOf(keptShort, shortCount);
+        Arrays.sort(sortedShort);
+        byte[][] sortedLong = keptLong.toArray(new byte[0][]);
+        Arrays.sort(sortedLong, Arrays::compareUnsigned);
+
+        return new ThreatPrefixSet(distinct(sortedShort), sortedLong);
+    }
+
+    public byte[] matchingPrefix(byte[] fullHash) {
+        int head = toSortableInt(fullHash, 0);
+        if (Arrays.binarySearch(shortPrefixes, head) >= 0) {
+            return Arrays.copyOf(fullHash, 4);
+        }
+
+        int low = lowerBound(head);
+        for (int i = low; i < longPrefixes.length && toSortableInt(longPrefixes[i], 0) == head; i++) {
+            byte[] prefix = longPrefixes[i];
+            if (Arrays.equals(prefix, 0, prefix.length, fullHash, 0, prefix.length)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    public byte[] sha256() {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[4];
+        int s = 0;
+        int l = 0;
+        while (s < shortPrefixes.length || l < longPrefixes.length) {
+            if (l >= longPrefixes.length
+                    || (s < shortPrefixes.length && compareShortToLong(shortPrefixes[s], longPrefixes[l]) <= 0)) {
+                writeSortableInt(shortPrefixes[s++], buffer);
+                digest.update(buffer);
+            } else {
+                digest.update(longPrefixes[l++]);
+            }
+        }
+        return digest.digest();
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int lowerBound(int head) {
+        int low = 0;
+        int high = longPrefixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (toSortableInt(longPrefixes[mid], 0) < head) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareShortToLong(int shortPrefix, byte[] longPrefix) {
+        int cmp = Integer.compare(shortPrefix, toSortableInt(longPrefix, 0));
+        return cmp != 0 ? cmp : -1;
+    }
+
+    // Сдвиг знакового бита: обычное сравнение int даёт беззнаковый порядок байтов.
+    private static int toSortableInt(byte[] bytes, int offset) {
+        int value = ((bytes[offset] & 0xff) << 24)
+                | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8)
+                | (bytes[offset + 3] & 0xff);
+        return value ^ Integer.MIN_VALUE;
+    }
+
+    private static void writeSortableInt(int sortable, byte[] target) {
+        int value = sortable ^ Integer.MIN_VALUE;
+        target[0] = (byte) (value >>> 24);
+        target[1] = (byte) (value >>> 16);
+        target[2] = (byte) (value >>> 8);
+        target[3] = (byte) value;
+    }
+
+    private static int[] distinct(int[] sorted) {
+        if (sorted.length < 2) {
+            return sorted;
+        }
+        int count = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example;
+
+/**
+ * Уровень доверия по итоговой оценке сайта.
+ */
+public enum TrustLevel {
+
+    VERY_HIGH(85, "ОЧЕНЬ ВЫСОКИЙ"),
+    HIGH(70, "ВЫСОКИЙ"),
+    MEDIUM(50, "СРЕДНИЙ"),
+    LOW(30, "НИЗКИЙ"),
+    DANGEROUS(Double.NEGATIVE_INFINITY, "ОПАСНЫЙ");
+
+    private static final TrustLevel[] LEVELS = values();
+
+    private final double minScore;
+    private final String label;
+
+    TrustLevel(double minScore, String label) {
+        this.minScore = minScore;
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static TrustLevel of(double score) {
+        for (TrustLevel level : LEVELS) {
+            if (score >= level.minScore) {
+                return level;
+            }
+        }
+        return DANGEROUS;
+    }
+
+    static TrustLevel byOrdinal(int ordinal) {
+        return LEVELS[ordinal];
+    }
+
+    /**
+     * Уровень по подписи из ответа или журнала; для неизвестной подписи — по оценке.
+     */
+    static TrustLevel fromLabel(String label, double score) {
+        for (TrustLevel level : LEVELS) {
+            if (level.label.equals(label)) {
+                return level;
+            }
+        }
+        return of(score);
+    }
+}
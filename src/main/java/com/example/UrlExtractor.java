@@ -0,0 +1,276 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Однопроходный поиск ссылок и доменов в тексте. Текст подаётся порциями
+ * (accept), поэтому его можно читать потоком; память ограничена длиной
+ * одного токена и числом найденных ссылок.
+ *
+ * Ссылки (http://, https://, ftp://) возвращаются первыми в порядке появления,
+ * за ними — одиночные домены, чей хост не встретился ни в одной ссылке.
+ */
+public final class UrlExtractor {
+
+    private static final int MAX_TOKEN_LENGTH = 8192;
+    private static final String[] SCHEMES = {"http://", "https://", "ftp://"};
+
+    private final StringBuilder token = new StringBuilder(256);
+    private boolean tokenOverflow;
+    private final Set<String> urls = new LinkedHashSet<>();
+    private final Set<String> urlHosts = new HashSet<>();
+    private final Map<String, String> domains = new LinkedHashMap<>();
+
+    public static Set<String> extract(CharSequence text) {
+        UrlExtractor extractor = new UrlExtractor();
+        if (text != null) {
+            extractor.accept(text);
+        }
+        return extractor.result();
+    }
+
+    public static Set<String> extract(Reader reader) throws IOException {
+        UrlExtractor extractor = new UrlExtractor();
+        extractor.accept(reader);
+        return extractor.result();
+    }
+
+    public void accept(Reader reader) throws IOException {
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            accept(buffer, 0, read);
+        }
+    }
+
+    public void accept(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    public void accept(char[] buffer, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(buffer[i]);
+        }
+    }
+
+    public void accept(char c) {
+        if (!isUrlChar(c)) {
+            endToken();
+            return;
+        }
+        if (token.length() < MAX_TOKEN_LENGTH) {
+            token.append(c);
+        } else {
+            tokenOverflow = true;
+        }
+    }
+
+    public Set<String> result() {
+        endToken();
+        Set<String> result = new LinkedHashSet<>(urls);
+        for (Map.Entry<String, String> domain : domains.entrySet()) {
+            if (!urlHosts.contains(domain.getKey())) {
+                result.add("https://" + domain.getValue());
+            }
+        }
+        return result;
+    }
+
+    private void endToken() {
+        if (token.length() > 0 && !tokenOverflow) {
+            scanToken();
+        }
+        token.setLength(0);
+        tokenOverflow = false;
+    }
+
+    private void scanToken() {
+        int length = token.length();
+        int domainsUntil = length;
+
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && isWordChar(token.charAt(i - 1))) {
+                continue;
+            }
+            int schemeLength = schemeAt(i);
+            if (schemeLength == 0) {
+                continue;
+            }
+
+            int end = length;
+            while (end > i + schemeLength && !isUrlEndChar(token.charAt(end - 1))) {
+                end--;
+            }
+            if (end > i + schemeLength) {
+                String url = token.substring(i, end);
+                urls.add(url);
+                rememberHost(url, schemeLength);
+            }
+            domainsUntil = i;
+            break;
+        }
+
+        scanDomains(domainsUntil);
+    }
+
+    private int schemeAt(int index) {
+        for (String scheme : SCHEMES) {
+            if (token.length() - index >= scheme.length()
+                    && regionMatchesIgnoreCase(index, scheme)) {
+                return scheme.length();
+            }
+        }
+        return 0;
+    }
+
+    private boolean regionMatchesIgnoreCase(int index, String lowerCase) {
+        for (int j = 0; j < lowerCase.length(); j++) {
+            if (Character.toLowerCase(token.charAt(index + j)) != lowerCase.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rememberHost(String url, int schemeLength) {
+        int end = schemeLength;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        String authority = url.substring(schemeLength, end);
+        String host = authority.substring(authority.lastIndexOf('@') + 1);
+        int colon = host.indexOf(':');
+        if (colon >= 0) {
+            host = host.substring(0, colon);
+        }
+
+        host = host.toLowerCase(Locale.ROOT);
+        while (!host.isEmpty() && urlHosts.add(host)) {
+            int dot = host.indexOf('.');
+            if (dot < 0) {
+                break;
+            }
+            host = host.substring(dot + 1);
+        }
+    }
+
+    private void scanDomains(int until) {
+        int start = 0;
+        while (start < until) {
+            while (start < until && !isDomainChar(token.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < until && isDomainChar(token.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                boolean email = (start > 0 && token.charAt(start - 1) == '@')
+                        || (end < token.length() && token.charAt(end) == '@');
+                boolean joinedToWord = start > 0 && token.charAt(start - 1) == '_';
+                if (!email && !joinedToWord) {
+                    addDomain(start, end);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void addDomain(int start, int end) {
+        while (start < end && !Character.isLetterOrDigit(token.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(token.charAt(end - 1))) {
+            end--;
+        }
+
+        // Идём справа налево: зона верхнего уровня, затем допустимые метки до первой недопустимой.
+        int labelEnd = end;
+        int domainStart = -1;
+        int labels = 0;
+        for (int i = end - 1; i >= start - 1; i--) {
+            if (i >= start && token.charAt(i) != '.') {
+                continue;
+            }
+            int labelStart = i + 1;
+            boolean valid = labels == 0 ? isTopLevelLabel(labelStart, labelEnd) : isLabel(labelStart, labelEnd);
+            if (!valid) {
+                break;
+            }
+            domainStart = labelStart;
+            labels++;
+            labelEnd = i;
+        }
+
+        if (labels < 2) {
+            return;
+        }
+        String domain = token.substring(domainStart, end);
+        String key = domain.toLowerCase(Locale.ROOT);
+        if (!key.startsWith("localhost")) {
+            domains.putIfAbsent(key, domain);
+        }
+    }
+
+    private boolean isTopLevelLabel(int start, int end) {
+        if (end - start < 2) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isAsciiLetter(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isLabel(int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > 63) {
+            return false;
+        }
+        if (token.charAt(start) == '-' || token.charAt(end - 1) == '-') {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = token.charAt(i);
+            if (!isAsciiLetter(c) && !isAsciiDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUrlChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || "-+&@#/%?=~_|!:,.;".indexOf(c) >= 0;
+    }
+
+    private static boolean isUrlEndChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || "-+&@#/%=~_|".indexOf(c) >= 0;
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '.' || c == '-';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '_';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
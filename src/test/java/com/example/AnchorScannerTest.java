@@ -0,0 +1,67 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnchorScannerTest {
+
+    @Test
+    void reportsHrefAndTextWithoutTags() {
+        assertEquals(List.of("/contact | Contact  us", "/privacy | Privacy"),
+                scan("<p>Hi</p><a href=\"/contact\"><span>Contact</span>\n\tus</a> <A HREF='/privacy'>Privacy</A>"));
+    }
+
+    @Test
+    void quotedGreaterThanDoesNotCloseTag() {
+        assertEquals(List.of("/about | About"), scan("<a title=\"a > b\" href=\"/about\">About</a>"));
+    }
+
+    @Test
+    void acceptsUnquotedHrefAndKeepsItsCase() {
+        assertEquals(List.of("/Kontakt.html | Kontakt"), scan("<a class=nav href = /Kontakt.html>Kontakt</a>"));
+    }
+
+    @Test
+    void ignoresAnchorsWithoutHrefAndSimilarAttributes() {
+        assertEquals(List.of(), scan("<a name=\"top\">Top</a><a data-href=\"/x\">X</a><abbr href=\"/y\">Y</abbr>"));
+    }
+
+    @Test
+    void unclosedAnchorIsReportedOnNextAnchorOrFinish() {
+        assertEquals(List.of("/a | First", "/b | Second"), scan("<a href=\"/a\">First<a href=\"/b\">Second"));
+    }
+
+    @Test
+    void overlongTagIsSkipped() {
+        String huge = "<a href=\"/spam\" title=\"" + "x".repeat(5000) + "\">Spam</a>";
+
+        assertEquals(List.of("/ok | Ok"), scan(huge + "<a href=\"/ok\">Ok</a>"));
+    }
+
+    @Test
+    void chunkBoundariesDoNotMatter() {
+        String html = "<ul><li><a href=\"/contacts\">Контакты</a></li><li><a href='/policy'>Политика</a></li></ul>";
+        List<String> anchors = new ArrayList<>();
+        AnchorScanner scanner = new AnchorScanner((href, text) -> anchors.add(href + " | " + text));
+        char[] chars = html.toCharArray();
+        for (int i = 0; i < chars.length; i += 3) {
+            scanner.accept(chars, i, Math.min(3, chars.length - i));
+        }
+        scanner.finish();
+
+        assertEquals(scan(html), anchors);
+    }
+
+    private static List<String> scan(String html) {
+        List<String> anchors = new ArrayList<>();
+        AnchorScanner scanner = new AnchorScanner((href, text) -> anchors.add(href + " | " + text));
+        char[] chars = html.toCharArray();
+        scanner.accept(chars, 0, chars.length);
+        scanner.finish();
+        return anchors;
+    }
+}
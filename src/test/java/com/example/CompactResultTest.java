@@ -0,0 +1,98 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactResultTest {
+
+    private static final Instant CHECKED_AT = Instant.ofEpochSecond(1_700_000_000L);
+
+    @Test
+    void roundTripKeepsFieldsAndDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("https", true);
+        details.put("validDomain", true);
+        details.put("validSSL", false);
+        details.put("resolvable", true);
+        details.put("ageMonths", 42);
+        details.put("certificate", Map.of("issuer", "CN=Test CA", "daysLeft", 90));
+        CheckerController.SiteResult result = result(details, 42, TrustLevel.HIGH.label());
+
+        CompactResult compact = CompactResult.of(result);
+
+        assertEquals(result, compact.toSiteResult("https://example.com/"));
+        assertEquals(1, compact.extraCount());
+        assertEquals(77.5, compact.score());
+        assertEquals(CHECKED_AT.getEpochSecond(), compact.checkedAtEpochSecond());
+        assertFalse(compact.partial());
+    }
+
+    @Test
+    void ageDifferentFromFieldStaysInDetails() {
+        CheckerController.SiteResult result = result(Map.of("ageMonths", 5), 42, TrustLevel.HIGH.label());
+
+        CompactResult compact = CompactResult.of(result);
+
+        assertEquals(1, compact.extraCount());
+        assertEquals(result, compact.toSiteResult("https://example.com/"));
+    }
+
+    @Test
+    void nonBooleanValueUnderFlagKeyIsKeptAsIs() {
+        CheckerController.SiteResult result = result(Map.of("https", "n/a"), 0, TrustLevel.HIGH.label());
+
+        assertEquals(result, CompactResult.of(result).toSiteResult("https://example.com/"));
+    }
+
+    @Test
+    void unknownChecksMarkResultPartial() {
+        CompactResult partial = CompactResult.of(result(Map.of("unknown", List.of("safeBrowsing")), 0, "x"));
+        CompactResult complete = CompactResult.of(result(Map.of("unknown", List.of()), 0, "x"));
+
+        assertTrue(partial.partial());
+        assertFalse(complete.partial());
+    }
+
+    @Test
+    void unknownLevelLabelFallsBackToScore() {
+        CheckerController.SiteResult restored = CompactResult.of(result(Map.of(), 0, "устаревшая подпись"))
+                .toSiteResult("https://example.com/");
+
+        assertEquals(TrustLevel.of(77.5).label(), restored.level());
+    }
+
+    @Test
+    void refreshIsClaimedOncePerRetryInterval() {
+        CompactResult compact = CompactResult.of(result(Map.of(), 0, "x"));
+
+        assertTrue(compact.claimRefresh(1_000, 60));
+        assertFalse(compact.claimRefresh(1_030, 60));
+        assertTrue(compact.claimRefresh(1_060, 60));
+    }
+
+    @Test
+    void refreshedEntryInheritsHalfOfHits() {
+        CompactResult previous = CompactResult.of(result(Map.of(), 0, "x"));
+        for (int i = 0; i < 5; i++) {
+            previous.recordHit();
+        }
+        CompactResult refreshed = CompactResult.of(result(Map.of(), 0, "x"));
+
+        refreshed.inheritHits(previous);
+
+        assertEquals(3, refreshed.recordHit());
+    }
+
+    private static CheckerController.SiteResult result(Map<String, Object> details, int ageMonths, String level) {
+        return new CheckerController.SiteResult("https://example.com/", true, ageMonths, true, true,
+                false, true, false, 77.5, level, CHECKED_AT, details);
+    }
+}
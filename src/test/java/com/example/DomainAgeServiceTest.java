@@ -0,0 +1,150 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Возраст домена против локальной заглушки RDAP.
+ */
+class DomainAgeServiceTest {
+
+    private static final OffsetDateTime REGISTERED = OffsetDateTime.now(ZoneOffset.UTC).minusMonths(30).minusDays(1);
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService networkExecutor;
+    private HttpProbeClient http;
+    private CheckMetrics metrics;
+    private String base;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/domain/", exchange -> {
+            String domain = exchange.getRequestURI().getPath().substring("/domain/".length());
+            requests.computeIfAbsent(domain, key -> new AtomicInteger()).incrementAndGet();
+            switch (domain) {
+                case "example.co.uk" -> respond(exchange, 200, rdap("registration", REGISTERED.toString()));
+                case "broken.com" -> respond(exchange, 500, "{}");
+                default -> respond(exchange, 404, "{}");
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        metrics = new CheckMetrics(new SimpleMeterRegistry());
+        HostHealth health = new HostHealth(metrics, 1000, 500, 3.0, 5, Duration.ofSeconds(30),
+                Duration.ofMillis(500), Duration.ofMinutes(30), 10_000);
+        http = new HttpProbeClient(health, metrics, 1000, 2000, 4, false);
+        networkExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        networkExecutor.shutdownNow();
+    }
+
+    @Test
+    void subdomainsShareOneLookupOfRegistrableDomain() {
+        DomainAgeService service = service(true);
+
+        assertEquals(30, service.ageMonths("www.example.co.uk").join());
+        assertEquals(30, service.ageMonths("shop.Example.co.uk").join());
+        assertEquals(1, requests.get("example.co.uk").get());
+    }
+
+    @Test
+    void missingDomainIsUnknownAndCached() {
+        DomainAgeService service = service(true);
+
+        assertEquals(DomainAgeService.UNKNOWN, service.ageMonths("missing.com").join());
+        assertEquals(DomainAgeService.UNKNOWN, service.ageMonths("www.missing.com").join());
+        assertEquals(1, requests.get("missing.com").get());
+    }
+
+    @Test
+    void serverErrorIsUnknownAndKeptForErrorTtl() {
+        DomainAgeService service = service(true);
+
+        assertEquals(DomainAgeService.UNKNOWN, service.ageMonths("broken.com").join());
+        assertEquals(DomainAgeService.UNKNOWN, service.ageMonths("www.broken.com").join());
+        assertEquals(1, requests.get("broken.com").get());
+    }
+
+    @Test
+    void serverErrorIsRetriedAfterErrorTtl() throws InterruptedException {
+        DomainAgeService service = service(true, Duration.ofMillis(50));
+
+        assertEquals(DomainAgeService.UNKNOWN, service.ageMonths("broken.com").join());
+        Thread.sleep(100);
+        assertEquals(DomainAgeService.UNKNOWN, service.ageMonths("broken.com").join());
+        assertEquals(2, requests.get("broken.com").get());
+    }
+
+    @Test
+    void publicSuffixAndDisabledServiceSkipLookup() {
+        assertEquals(DomainAgeService.UNKNOWN, service(true).ageMonths("co.uk").join());
+        assertEquals(DomainAgeService.UNKNOWN, service(false).ageMonths("www.example.co.uk").join());
+        assertEquals(Map.of(), requests);
+    }
+
+    @Test
+    void registrationAgeIsReadFromRdapEvents() {
+        assertEquals(30, DomainAgeService.registrationAgeMonths(rdap("registration", REGISTERED.toString())));
+        assertEquals(0, DomainAgeService.registrationAgeMonths(
+                rdap("registration", OffsetDateTime.now(ZoneOffset.UTC).plusDays(3).toString())));
+        assertEquals(DomainAgeService.UNKNOWN, DomainAgeService.registrationAgeMonths(
+                rdap("last changed", REGISTERED.toString())));
+        assertEquals(DomainAgeService.UNKNOWN, DomainAgeService.registrationAgeMonths(rdap("registration", "вчера")));
+        assertEquals(DomainAgeService.UNKNOWN, DomainAgeService.registrationAgeMonths("{}"));
+        assertEquals(DomainAgeService.UNKNOWN, DomainAgeService.registrationAgeMonths("не json"));
+    }
+
+    private DomainAgeService service(boolean enabled) {
+        return service(enabled, Duration.ofMinutes(1));
+    }
+
+    private DomainAgeService service(boolean enabled, Duration errorTtl) {
+        return new DomainAgeService(http, networkExecutor, metrics, enabled, base + "/",
+                Duration.ofDays(30), Duration.ofHours(6), errorTtl, 1000);
+    }
+
+    private static String rdap(String action, String date) {
+        return new JSONObject()
+                .put("objectClassName", "domain")
+                .put("events", new JSONArray().put(new JSONObject()
+                        .put("eventAction", action)
+                        .put("eventDate", date)))
+                .toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/rdap+json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DomainSetTest {
+
+    private static final String LIST = """
+            # Запрещённые домены
+            example.com
+            *.Tracker.NET   # с комментарием
+            .ads.org.
+
+            пример.рф
+            example.com
+            com
+            """;
+
+    @Test
+    void readsDomainsSkippingCommentsAndDuplicates() throws IOException {
+        assertEquals(5, read(LIST).size());
+    }
+
+    @Test
+    void matchesHostAndSubdomains() throws IOException {
+        DomainSet set = read(LIST);
+
+        assertEquals("example.com", set.match("example.com"));
+        assertEquals("example.com", set.match("WWW.Example.com."));
+        assertEquals("tracker.net", set.match("a.b.tracker.net"));
+        assertEquals("ads.org", set.match("ads.org"));
+    }
+
+    @Test
+    void doesNotMatchSiblingsOrTopLevelDomain() throws IOException {
+        DomainSet set = read(LIST);
+
+        assertNull(set.match("notexample.com"));
+        assertNull(set.match("example.org"));
+        assertNull(set.match("com"));
+        assertNull(set.match(""));
+        assertNull(set.match(null));
+    }
+
+    @Test
+    void unicodeDomainsMatchInBothForms() throws IOException {
+        DomainSet set = read(LIST);
+
+        assertEquals("xn--e1afmkfd.xn--p1ai", set.match("www.xn--e1afmkfd.xn--p1ai"));
+        assertEquals("xn--e1afmkfd.xn--p1ai", set.match("www.пример.рф"));
+    }
+
+    @Test
+    void largeSetHasNoFalseMatches() throws IOException {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            list.append("listed").append(i).append(".example\n");
+        }
+        DomainSet set = read(list.toString());
+
+        assertEquals(20_000, set.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals("listed" + i + ".example", set.match("www.listed" + i + ".example"));
+            assertNull(set.match("other" + i + ".example"));
+        }
+    }
+
+    @Test
+    void emptySetMatchesNothing() {
+        assertEquals(0, DomainSet.EMPTY.size());
+        assertNull(DomainSet.EMPTY.match("example.com"));
+    }
+
+    private static DomainSet read(String list) throws IOException {
+        return DomainSet.read(new StringReader(list));
+    }
+}
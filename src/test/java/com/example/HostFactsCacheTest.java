@@ -0,0 +1,27 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HostFactsCacheTest {
+
+    @Test
+    void originKeepsSchemeHostAndExplicitPort() {
+        assertEquals("https://example.com", HostFactsCache.originOf("HTTPS://Example.COM/path?q=1"));
+        assertEquals("http://example.com:8080", HostFactsCache.originOf("http://example.com:8080/a"));
+    }
+
+    @Test
+    void originAcceptsLinksThatUriRejects() {
+        assertEquals("https://example.com", HostFactsCache.originOf("https://example.com/a|b"));
+        assertEquals("https://my_site.example.com", HostFactsCache.originOf("https://my_site.example.com"));
+    }
+
+    @Test
+    void originIsNullWithoutHost() {
+        assertNull(HostFactsCache.originOf("file:///etc/hosts"));
+        assertNull(HostFactsCache.originOf("not a url"));
+    }
+}
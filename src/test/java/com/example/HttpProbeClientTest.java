@@ -0,0 +1,92 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpProbeClientTest {
+
+    private final CountDownLatch slowReleased = new CountDownLatch(1);
+    private HttpServer server;
+    private HttpProbeClient client;
+    private String base;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/slow", exchange -> {
+            try {
+                slowReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/unavailable", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        CheckMetrics metrics = new CheckMetrics(new SimpleMeterRegistry());
+        HostHealth health = new HostHealth(metrics, 1000, 500, 3.0, 5, Duration.ofSeconds(30),
+                Duration.ofMillis(500), Duration.ofMinutes(30), 10_000);
+        client = new HttpProbeClient(health, metrics, 1000, 1000, 1, false);
+    }
+
+    @AfterEach
+    void stop() {
+        slowReleased.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void cancelledProbeReturnsItsHostPermit() {
+        CompletableFuture<HttpProbeClient.ProbeResponse> slow = client.headAsync(base + "/slow");
+        slow.cancel(true);
+
+        assertEquals(200, client.headAsync(base + "/").join().status());
+    }
+
+    @Test
+    void unsupportedSchemeDoesNotHoldHostPermit() {
+        String port = String.valueOf(server.getAddress().getPort());
+        assertTrue(!client.headAsync("ftp://127.0.0.1:" + port + "/").join().reachable());
+
+        assertEquals(200, client.headAsync(base + "/").join().status());
+    }
+
+    @Test
+    void serverErrorsFromApiOpenTheCircuit() {
+        for (int i = 0; i < 5; i++) {
+            IOException error = assertThrows(IOException.class,
+                    () -> client.postJson(CheckMetrics.TARGET_SAFE_BROWSING, base + "/unavailable", "{}"));
+            assertEquals("HTTP 503 от 127.0.0.1", error.getMessage());
+        }
+
+        IOException error = assertThrows(IOException.class,
+                () -> client.postJson(CheckMetrics.TARGET_SAFE_BROWSING, base + "/unavailable", "{}"));
+        assertTrue(error.getMessage().startsWith("Хост временно исключён"));
+    }
+}
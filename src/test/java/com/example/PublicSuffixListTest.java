@@ -0,0 +1,79 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PublicSuffixListTest {
+
+    private static final String RULES = """
+            // ===BEGIN ICANN DOMAINS===
+            com
+            uk
+            co.uk
+            *.ck
+            !www.ck
+            рф
+
+            // ===BEGIN PRIVATE DOMAINS===
+            github.io  комментарий после правила
+            """;
+
+    @Test
+    void registrableDomainIsSuffixPlusOneLabel() throws IOException {
+        PublicSuffixList list = load(RULES);
+
+        assertEquals("example.com", list.registrableDomain("www.Example.COM"));
+        assertEquals("example.co.uk", list.registrableDomain("shop.example.co.uk"));
+        assertEquals("user.github.io", list.registrableDomain("blog.user.github.io"));
+    }
+
+    @Test
+    void publicSuffixItselfHasNoRegistrableDomain() throws IOException {
+        PublicSuffixList list = load(RULES);
+
+        assertNull(list.registrableDomain("co.uk"));
+        assertNull(list.registrableDomain("com"));
+        assertNull(list.registrableDomain("github.io"));
+        assertNull(list.registrableDomain(""));
+        assertNull(list.registrableDomain(null));
+    }
+
+    @Test
+    void wildcardAndExceptionRules() throws IOException {
+        PublicSuffixList list = load(RULES);
+
+        assertNull(list.registrableDomain("anything.ck"));
+        assertEquals("site.anything.ck", list.registrableDomain("www.site.anything.ck"));
+        assertEquals("www.ck", list.registrableDomain("www.ck"));
+        assertEquals("www.ck", list.registrableDomain("sub.www.ck"));
+    }
+
+    @Test
+    void unlistedTopLevelDomainUsesDefaultRule() throws IOException {
+        assertEquals("example.unlisted", load(RULES).registrableDomain("a.b.example.unlisted"));
+    }
+
+    @Test
+    void unicodeRulesAreStoredInPunycode() throws IOException {
+        assertEquals("xn--e1afmkfd.xn--p1ai", load(RULES).registrableDomain("www.xn--e1afmkfd.xn--p1ai"));
+    }
+
+    @Test
+    void bundledListIsLoaded() {
+        PublicSuffixList list = PublicSuffixList.bundled();
+
+        assertEquals("example.co.uk", list.registrableDomain("www.example.co.uk"));
+        assertEquals("city.kawasaki.jp", list.registrableDomain("www.city.kawasaki.jp"));
+        assertNull(list.registrableDomain("foo.kawasaki.jp"));
+    }
+
+    private static PublicSuffixList load(String rules) throws IOException {
+        return PublicSuffixList.load(new ByteArrayInputStream(rules.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResultStoreTest {
+
+    private static final CheckMetrics METRICS = new CheckMetrics(new SimpleMeterRegistry());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactionKeepsLatestRecordsAndAcceptsWritesAfterwards() throws IOException {
+        Path log = dir.resolve("results.log");
+        ResultStore store = new ResultStore(METRICS, true, log.toString(), Duration.ofHours(24), 1000);
+        for (int i = 0; i < 10; i++) {
+            store.append(result("https://example.com", i));
+        }
+        store.append(result("https://example.org", 50));
+
+        store.compact();
+        store.append(result("https://example.net", 70));
+
+        assertEquals(9, store.read("https://example.com").score());
+        assertEquals(50, store.read("https://example.org").score());
+        assertEquals(70, store.read("https://example.net").score());
+        store.close();
+
+        ResultStore reopened = new ResultStore(METRICS, true, log.toString(), Duration.ofHours(24), 1000);
+        assertEquals(9, reopened.read("https://example.com").score());
+        assertNotNull(reopened.read("https://example.net"));
+        reopened.close();
+    }
+
+    @Test
+    void indexIsTrimmedToMaxEntriesOnLoad() throws IOException {
+        Path log = dir.resolve("results.log");
+        ResultStore store = new ResultStore(METRICS, true, log.toString(), Duration.ofHours(24), 1000);
+        store.append(result("https://old.example.com", 10, Instant.now().minusSeconds(3600)));
+        store.append(result("https://new.example.com", 20, Instant.now()));
+        store.close();
+
+        ResultStore reopened = new ResultStore(METRICS, true, log.toString(), Duration.ofHours(24), 1);
+        assertNull(reopened.read("https://old.example.com"));
+        assertEquals(20, reopened.read("https://new.example.com").score());
+        reopened.close();
+    }
+
+    private static CheckerController.SiteResult result(String link, double score) {
+        return result(link, score, Instant.now());
+    }
+
+    private static CheckerController.SiteResult result(String link, double score, Instant timestamp) {
+        return new CheckerController.SiteResult(link, true, 12, true, true, true, true, true,
+                score, TrustLevel.of(score).label(), timestamp, Map.of("https", true));
+    }
+}
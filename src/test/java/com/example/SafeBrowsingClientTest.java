@@ -0,0 +1,223 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Safe Browsing против локальной заглушки API: пакетный режим threatMatches:find
+ * и локальная база префиксов с подтверждением через fullHashes:find.
+ */
+class SafeBrowsingClientTest {
+
+    private static final String UNSAFE = "http://evil.example/";
+    private static final String SAFE = "http://good.example/";
+
+    private final AtomicInteger matchRequests = new AtomicInteger();
+    private final AtomicInteger fullHashRequests = new AtomicInteger();
+    private volatile int matchStatus = 200;
+    private HttpServer server;
+    private ExecutorService networkExecutor;
+    private HttpProbeClient http;
+    private CheckMetrics metrics;
+    private String base;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v4/threatMatches:find", exchange -> {
+            matchRequests.incrementAndGet();
+            JSONArray entries = requestBody(exchange).getJSONObject("threatInfo").getJSONArray("threatEntries");
+            JSONArray matches = new JSONArray();
+            for (int i = 0; i < entries.length(); i++) {
+                String url = entries.getJSONObject(i).getString("url");
+                if (url.equals(UNSAFE)) {
+                    matches.put(new JSONObject().put("threat", new JSONObject().put("url", url)));
+                }
+            }
+            respond(exchange, matchStatus, new JSONObject().put("matches", matches));
+        });
+        server.createContext("/v4/threatListUpdates:fetch", exchange -> {
+            requestBody(exchange);
+            byte[] prefix = Arrays.copyOf(fullHash("evil.example/"), 4);
+            String checksum = encode(ThreatPrefixSet.EMPTY.apply(new int[0], List.of(prefix)).sha256());
+            JSONArray updates = new JSONArray();
+            for (String type : List.of("MALWARE", "SOCIAL_ENGINEERING", "UNWANTED_SOFTWARE")) {
+                JSONObject update = new JSONObject()
+                        .put("threatType", type)
+                        .put("responseType", "FULL_UPDATE")
+                        .put("newClientState", "state-1");
+                if (type.equals("MALWARE")) {
+                    update.put("additions", new JSONArray().put(new JSONObject().put("rawHashes",
+                            new JSONObject().put("prefixSize", 4).put("rawHashes", encode(prefix)))));
+                    update.put("checksum", new JSONObject().put("sha256", checksum));
+                }
+                updates.put(update);
+            }
+            respond(exchange, 200, new JSONObject()
+                    .put("listUpdateResponses", updates)
+                    .put("minimumWaitDuration", "300s"));
+        });
+        server.createContext("/v4/fullHashes:find", exchange -> {
+            fullHashRequests.incrementAndGet();
+            requestBody(exchange);
+            respond(exchange, 200, new JSONObject().put("matches", new JSONArray().put(new JSONObject()
+                    .put("threat", new JSONObject().put("hash", encode(fullHash("evil.example/")))))));
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        metrics = new CheckMetrics(new SimpleMeterRegistry());
+        HostHealth health = new HostHealth(metrics, 1000, 500, 3.0, 5, Duration.ofSeconds(30),
+                Duration.ofMillis(500), Duration.ofMinutes(30), 10_000);
+        http = new HttpProbeClient(health, metrics, 1000, 2000, 4, false);
+        networkExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        networkExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneBatchRequest() {
+        SafeBrowsingClient client = client(threatLists("lookup"));
+        try {
+            CompletableFuture<Boolean> unsafe = client.isSafe(UNSAFE);
+            CompletableFuture<Boolean> safe = client.isSafe(SAFE);
+
+            assertFalse(unsafe.join());
+            assertTrue(safe.join());
+            assertEquals(1, matchRequests.get());
+
+            // Вердикты кешируются, повторная проверка не ходит в сеть.
+            assertFalse(client.isSafe(UNSAFE).join());
+            assertEquals(1, matchRequests.get());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void apiErrorFailsTheCheckInsteadOfReportingSafe() {
+        matchStatus = 500;
+        SafeBrowsingClient client = client(threatLists("lookup"));
+        try {
+            assertThrows(CompletionException.class, () -> client.isSafe(UNSAFE).join());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void localDatabaseConfirmsPrefixMatchWithFullHash() throws Exception {
+        ThreatListDatabase threatLists = threatLists("update");
+        threatLists.update();
+        assertTrue(threatLists.isReady());
+        assertEquals(1, threatLists.prefixCount());
+
+        SafeBrowsingClient client = client(threatLists);
+        try {
+            assertTrue(client.isSafe(SAFE).join());
+            assertEquals(0, fullHashRequests.get());
+
+            assertFalse(client.isSafe(UNSAFE).join());
+            assertEquals(1, fullHashRequests.get());
+            assertEquals(0, matchRequests.get());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void localDatabaseChecksLinksThatUriRejects() throws Exception {
+        ThreatListDatabase threatLists = threatLists("update");
+        threatLists.update();
+
+        SafeBrowsingClient client = client(threatLists);
+        try {
+            assertFalse(client.isSafe("http://evil.example/a|b").join());
+            assertEquals(1, fullHashRequests.get());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void linkWithoutExpressionsFallsBackToLookup() throws Exception {
+        ThreatListDatabase threatLists = threatLists("update");
+        threatLists.update();
+
+        SafeBrowsingClient client = client(threatLists);
+        try {
+            assertTrue(client.isSafe("http:///no-host").join());
+            assertEquals(1, matchRequests.get());
+        } finally {
+            client.stop();
+        }
+    }
+
+    @Test
+    void disabledClientReportsEverythingSafe() {
+        SafeBrowsingClient client = new SafeBrowsingClient(http, threatLists("lookup"), networkExecutor, metrics,
+                "", base, Duration.ofMillis(20), 500, Duration.ofMinutes(30));
+
+        assertFalse(client.isEnabled());
+        assertTrue(client.isSafe(UNSAFE).join());
+        assertEquals(0, matchRequests.get());
+    }
+
+    private ThreatListDatabase threatLists(String mode) {
+        return new ThreatListDatabase(http, "test-key", base, mode, Duration.ofMinutes(30), Duration.ofMinutes(5));
+    }
+
+    private SafeBrowsingClient client(ThreatListDatabase threatLists) {
+        return new SafeBrowsingClient(http, threatLists, networkExecutor, metrics,
+                "test-key", base, Duration.ofMillis(50), 500, Duration.ofMinutes(30));
+    }
+
+    private static JSONObject requestBody(HttpExchange exchange) throws IOException {
+        return new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static byte[] fullHash(String expression) {
+        return ThreatPrefixSet.newSha256().digest(expression.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SafeBrowsingUrlsTest {
+
+    @Test
+    void buildsHostSuffixAndPathPrefixCombinations() {
+        Set<String> expressions = SafeBrowsingUrls.expressions("http://a.b.c/1/2.html?param=1");
+
+        assertEquals(Set.of(
+                "a.b.c/1/2.html?param=1", "a.b.c/1/2.html", "a.b.c/", "a.b.c/1/",
+                "b.c/1/2.html?param=1", "b.c/1/2.html", "b.c/", "b.c/1/"), expressions);
+    }
+
+    @Test
+    void canonicalizesHostAndPath() {
+        Set<String> expressions = SafeBrowsingUrls.expressions("http://WWW.Example.COM./a/./b/../c");
+
+        assertTrue(expressions.contains("www.example.com/a/c"));
+        assertTrue(expressions.contains("example.com/a/"));
+    }
+
+    @Test
+    void ipAddressHasNoHostSuffixes() {
+        assertEquals(Set.of("1.2.3.4/"), SafeBrowsingUrls.expressions("http://1.2.3.4/"));
+    }
+
+    @Test
+    void hostIsLimitedToLastFiveLabels() {
+        Set<String> expressions = SafeBrowsingUrls.expressions("http://a.b.c.d.e.f.g/");
+
+        assertEquals(Set.of("a.b.c.d.e.f.g/", "c.d.e.f.g/", "d.e.f.g/", "e.f.g/", "f.g/"), expressions);
+    }
+
+    @Test
+    void acceptsLinksThatUriRejects() {
+        assertTrue(SafeBrowsingUrls.expressions("http://my_site.example.com/").contains("my_site.example.com/"));
+        assertTrue(SafeBrowsingUrls.expressions("http://example.com/a|b?q=<x>").contains("example.com/a|b?q=<x>"));
+    }
+
+    @Test
+    void unparseableOrHostlessUrlHasNoExpressions() {
+        assertTrue(SafeBrowsingUrls.expressions("foo://example.com/").isEmpty());
+        assertTrue(SafeBrowsingUrls.expressions("http:///path").isEmpty());
+        assertTrue(SafeBrowsingUrls.expressions("mailto:someone@example.com").isEmpty());
+    }
+
+    @Test
+    void hashesAreSha256OfExpressions() {
+        List<byte[]> hashes = SafeBrowsingUrls.expressionHashes("http://example.com");
+
+        assertEquals(1, hashes.size());
+        assertArrayEquals(ThreatPrefixSet.newSha256().digest("example.com/".getBytes(StandardCharsets.UTF_8)),
+                hashes.get(0));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = pool.submit(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return 42;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Integer> second = pool.submit(() -> flight.execute("key", calls::incrementAndGet));
+
+            // Второй вызывающий должен успеть встать в ожидание до завершения первого.
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(42, first.get(5, TimeUnit.SECONDS));
+            assertEquals(42, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void finishedKeyIsComputedAgain() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(1, flight.execute("key", calls::incrementAndGet));
+        assertEquals(2, flight.execute("key", calls::incrementAndGet));
+    }
+
+    @Test
+    void failureIsRethrownAndNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(7, flight.execute("key", () -> 7));
+    }
+
+    @Test
+    void asyncCallersShareOneFuture() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+
+        CompletableFuture<Integer> first = flight.executeAsync("key", () -> {
+            calls.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<Integer> second = flight.executeAsync("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(0);
+        });
+        source.complete(5);
+
+        assertEquals(5, first.join());
+        assertEquals(5, second.join());
+        assertEquals(1, calls.get());
+        assertEquals(6, flight.executeAsync("key", () -> CompletableFuture.completedFuture(6)).join());
+    }
+
+    @Test
+    void cancellingOneAsyncCallerDoesNotAffectOthers() {
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+        CompletableFuture<Integer> first = flight.executeAsync("key", () -> source);
+        CompletableFuture<Integer> second = flight.executeAsync("key", () -> source);
+
+        first.cancel(true);
+        source.complete(3);
+
+        assertEquals(3, second.join());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Поиск страниц контактов и политики против локальной заглушки сайта.
+ */
+class SiteDiscoveryTest {
+
+    private final Set<String> headRequests = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> pages = new ConcurrentHashMap<>();
+    private final CountDownLatch hangReleased = new CountDownLatch(1);
+    private volatile int homepageStatus = 200;
+    private volatile String homepage = "<html><body>Пусто</body></html>";
+    private HttpServer server;
+    private SiteDiscovery discovery;
+    private String origin;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        CheckMetrics metrics = new CheckMetrics(new SimpleMeterRegistry());
+        HostHealth health = new HostHealth(metrics, 5000, 500, 3.0, 5, Duration.ofSeconds(30),
+                Duration.ofMillis(500), Duration.ofMinutes(30), 10_000);
+        HttpProbeClient http = new HttpProbeClient(health, metrics, 1000, 5000, 16, false);
+        discovery = new SiteDiscovery(http, 64 * 1024);
+    }
+
+    @AfterEach
+    void stop() {
+        hangReleased.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void homepageLinksAvoidProbing() {
+        homepage = "<a href=\"/about/contact-us\">Write to us</a> <a href='/legal'>Privacy notice</a>";
+
+        assertEquals(new SiteDiscovery.Pages(true, true), discovery.discover(origin));
+        assertEquals(Set.of(), headRequests);
+    }
+
+    @Test
+    void encodedCyrillicLinkIsRecognized() {
+        homepage = "<a href=\"/%D0%BA%D0%BE%D0%BD%D1%82%D0%B0%D0%BA%D1%82%D1%8B\">Мы</a>"
+                + "<a href=\"/docs\">Обработка персональных данных</a>";
+
+        assertEquals(new SiteDiscovery.Pages(true, true), discovery.discover(origin));
+        assertEquals(Set.of(), headRequests);
+    }
+
+    @Test
+    void probesOnlyWhatHomepageLacks() {
+        homepage = "<a href=\"/contacts\">Contacts</a>";
+        pages.put("/privacy-policy", 200);
+
+        assertEquals(new SiteDiscovery.Pages(true, true), discovery.discover(origin));
+        assertTrue(headRequests.contains("/privacy-policy"));
+        assertTrue(headRequests.stream().noneMatch(path -> path.contains("contact")));
+    }
+
+    @Test
+    void unavailableHomepageFallsBackToProbing() {
+        homepageStatus = 500;
+        pages.put("/feedback", 200);
+
+        assertEquals(new SiteDiscovery.Pages(true, false), discovery.discover(origin));
+    }
+
+    @Test
+    void firstHitDoesNotWaitForHangingProbes() {
+        homepage = "<a href=\"/privacy\">Privacy</a>";
+        pages.put("/contact", 200);
+        pages.put("/contacts", -1);
+
+        long started = System.nanoTime();
+        assertEquals(new SiteDiscovery.Pages(true, true), discovery.discover(origin));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    // Код ответа -1 — запрос висит, пока тест не завершится.
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            headRequests.add(path);
+            int status = pages.getOrDefault(path, 404);
+            if (status < 0) {
+                try {
+                    hangReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                status = 404;
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        if (!path.equals("/")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = homepage.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(homepageStatus, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
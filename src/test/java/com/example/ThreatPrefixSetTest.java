@@ -0,0 +1,85 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ThreatPrefixSetTest {
+
+    private static final byte[] LOW = bytes(0x00, 0x00, 0x00, 0x01);
+    private static final byte[] HIGH = bytes(0xff, 0x00, 0x00, 0x00);
+    private static final byte[] LONG = bytes(0x7f, 0x00, 0x00, 0x00, 0x01);
+
+    @Test
+    void matchesShortAndLongPrefixes() {
+        ThreatPrefixSet set = ThreatPrefixSet.EMPTY.apply(new int[0], List.of(HIGH, LOW, LONG));
+
+        assertEquals(3, set.size());
+        assertArrayEquals(HIGH, set.matchingPrefix(hash(0xff, 0x00, 0x00, 0x00, 0x42)));
+        assertArrayEquals(LOW, set.matchingPrefix(hash(0x00, 0x00, 0x00, 0x01, 0x42)));
+        assertArrayEquals(LONG, set.matchingPrefix(hash(0x7f, 0x00, 0x00, 0x00, 0x01)));
+        assertNull(set.matchingPrefix(hash(0x7f, 0x00, 0x00, 0x00, 0x02)));
+        assertNull(set.matchingPrefix(hash(0x80, 0x00, 0x00, 0x00, 0x00)));
+    }
+
+    @Test
+    void duplicateAdditionsAreStoredOnce() {
+        ThreatPrefixSet set = ThreatPrefixSet.EMPTY.apply(new int[0], List.of(LOW, LOW.clone()));
+
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void removalIndicesFollowUnsignedOrderAcrossPrefixLengths() {
+        ThreatPrefixSet set = ThreatPrefixSet.EMPTY.apply(new int[0], List.of(HIGH, LOW, LONG));
+
+        // Порядок Update API: LOW (0x00...), LONG (0x7f...), HIGH (0xff...).
+        ThreatPrefixSet withoutLong = set.apply(new int[]{1}, List.of());
+        assertEquals(2, withoutLong.size());
+        assertNull(withoutLong.matchingPrefix(hash(0x7f, 0x00, 0x00, 0x00, 0x01)));
+        assertArrayEquals(HIGH, withoutLong.matchingPrefix(hash(0xff, 0x00, 0x00, 0x00, 0x00)));
+
+        ThreatPrefixSet onlyLong = set.apply(new int[]{2, 0}, List.of());
+        assertEquals(1, onlyLong.size());
+        assertArrayEquals(LONG, onlyLong.matchingPrefix(hash(0x7f, 0x00, 0x00, 0x00, 0x01)));
+    }
+
+    @Test
+    void checksumCoversPrefixesInSortedOrder() {
+        ThreatPrefixSet set = ThreatPrefixSet.EMPTY.apply(new int[0], List.of(HIGH, LONG, LOW));
+
+        ByteArrayOutputStream sorted = new ByteArrayOutputStream();
+        sorted.writeBytes(LOW);
+        sorted.writeBytes(LONG);
+        sorted.writeBytes(HIGH);
+        assertArrayEquals(ThreatPrefixSet.newSha256().digest(sorted.toByteArray()), set.sha256());
+    }
+
+    @Test
+    void emptySetMatchesNothing() {
+        assertEquals(0, ThreatPrefixSet.EMPTY.size());
+        assertNull(ThreatPrefixSet.EMPTY.matchingPrefix(hash(0x00, 0x00, 0x00, 0x01)));
+        assertArrayEquals(ThreatPrefixSet.newSha256().digest(), ThreatPrefixSet.EMPTY.sha256());
+    }
+
+    private static byte[] hash(int... head) {
+        byte[] hash = new byte[32];
+        for (int i = 0; i < head.length; i++) {
+            hash[i] = (byte) head[i];
+        }
+        return hash;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UrlExtractorTest {
+
+    @Test
+    void linksComeFirstThenBareDomains() {
+        Set<String> found = UrlExtractor.extract("См. www.test.org. Подробнее: https://example.com/page, ftp://files.example.net/a.");
+
+        assertEquals(List.of("https://example.com/page", "ftp://files.example.net/a", "https://www.test.org"),
+                List.copyOf(found));
+    }
+
+    @Test
+    void trailingPunctuationIsNotPartOfLink() {
+        Set<String> found = UrlExtractor.extract("(http://example.com/a?b=1); http://example.com/x!");
+
+        assertEquals(List.of("http://example.com/a?b=1", "http://example.com/x"), List.copyOf(found));
+    }
+
+    @Test
+    void domainAlreadyCoveredByLinkIsNotRepeated() {
+        Set<String> found = UrlExtractor.extract("https://shop.Example.com/cart и example.com, а также shop.example.com");
+
+        assertEquals(Set.of("https://shop.Example.com/cart"), found);
+    }
+
+    @Test
+    void emailAddressesAreNotDomains() {
+        assertTrue(UrlExtractor.extract("Пишите на support@example.com").isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidDomains() {
+        assertTrue(UrlExtractor.extract("версия 1.2.3, localhost.localdomain, -bad-.com, my_var.name").isEmpty());
+    }
+
+    @Test
+    void schemeIsMatchedIgnoringCase() {
+        assertEquals(Set.of("HTTPS://Example.com/"), UrlExtractor.extract("HTTPS://Example.com/"));
+    }
+
+    @Test
+    void overlongTokenIsSkipped() {
+        String huge = "https://example.com/" + "a".repeat(10_000);
+
+        assertEquals(Set.of("https://next.example.org"), UrlExtractor.extract(huge + " next.example.org"));
+    }
+
+    @Test
+    void streamedChunksGiveSameResultAsWholeText() throws IOException {
+        String text = "начало https://example.com/path?q=1 середина docs.example.org конец";
+
+        UrlExtractor extractor = new UrlExtractor();
+        for (int i = 0; i < text.length(); i += 7) {
+            extractor.accept(text.substring(i, Math.min(text.length(), i + 7)));
+        }
+
+        Set<String> expected = Set.of("https://example.com/path?q=1", "https://docs.example.org");
+        assertEquals(expected, extractor.result());
+        assertEquals(expected, UrlExtractor.extract(new StringReader(text)));
+    }
+
+    @Test
+    void nullTextHasNoLinks() {
+        assertTrue(UrlExtractor.extract((CharSequence) null).isEmpty());
+    }
+}